@@ -1,5 +1,5 @@
 import { apiGet, apiPost, apiPut, apiDelete } from './client'
-import type { Part, PartCreateRequest, PartUpdateRequest, Page } from '@/types/part'
+import type { Part, PartCreateRequest, PartUpdateRequest, PartQuery, Page } from '@/types/part'
 
 export const partsApi = {
   getAll(page = 0, size = 20, sort?: string, direction?: string): Promise<Page<Part>> {
@@ -10,6 +10,20 @@ export const partsApi = {
     return apiGet<Page<Part>>(url)
   },
 
+  query(filter: PartQuery, page = 0, size = 20, sort?: string, direction?: string): Promise<Page<Part>> {
+    const params = new URLSearchParams({ page: String(page), size: String(size) })
+    for (const [key, value] of Object.entries(filter)) {
+      if (value !== undefined && value !== '') {
+        params.set(key, String(value))
+      }
+    }
+    if (sort) {
+      params.set('sort', sort)
+      params.set('direction', direction ?? 'ASC')
+    }
+    return apiGet<Page<Part>>(`/parts/query?${params}`)
+  },
+
   getById(id: number): Promise<Part> {
     return apiGet<Part>(`/parts/${id}`)
   },
@@ -1,5 +1,5 @@
 import { apiGet, apiPost, apiPut, apiDelete } from './client'
-import type { VinylRecord, RecordCreateRequest, RecordUpdateRequest, Page } from '@/types/record'
+import type { VinylRecord, RecordCreateRequest, RecordUpdateRequest, RecordQuery, Page } from '@/types/record'
 
 export const recordsApi = {
   getAll(page = 0, size = 20, sort?: string, direction?: string): Promise<Page<VinylRecord>> {
@@ -10,6 +10,20 @@ export const recordsApi = {
     return apiGet<Page<VinylRecord>>(url)
   },
 
+  query(filter: RecordQuery, page = 0, size = 20, sort?: string, direction?: string): Promise<Page<VinylRecord>> {
+    const params = new URLSearchParams({ page: String(page), size: String(size) })
+    for (const [key, value] of Object.entries(filter)) {
+      if (value !== undefined && value !== '') {
+        params.set(key, String(value))
+      }
+    }
+    if (sort) {
+      params.set('sort', sort)
+      params.set('direction', direction ?? 'ASC')
+    }
+    return apiGet<Page<VinylRecord>>(`/records/query?${params}`)
+  },
+
   getById(id: number): Promise<VinylRecord> {
     return apiGet<VinylRecord>(`/records/${id}`)
   },
@@ -7,8 +7,6 @@ import { ApiException } from '@/api/client'
 
 export const usePartsStore = defineStore('parts', () => {
   const parts = ref<Part[]>([])
-  const searchResults = ref<Part[]>([])
-  const typeFilterResults = ref<Part[]>([])
   const isLoading = ref(false)
   const error = ref<string | null>(null)
   const selectedType = ref<PartType | null>(null)
@@ -24,24 +22,11 @@ export const usePartsStore = defineStore('parts', () => {
   const sortField = ref<string | null>(null)
   const sortDirection = ref<SortDirection>('ASC')
 
-  const filteredParts = computed(() => {
-    if (searchQuery.value) {
-      const source = searchResults.value
-      if (selectedType.value) {
-        return source.filter(p => p.type === selectedType.value)
-      }
-      return source
-    }
-    if (selectedType.value) {
-      return typeFilterResults.value
-    }
-    return parts.value
-  })
+  // Type and search filters are applied server-side, so the current page is already filtered
+  const filteredParts = computed(() => parts.value)
 
   const totalParts = computed(() => totalElements.value)
 
-  const isPaginated = computed(() => !searchQuery.value && !selectedType.value)
-
   const hasPreviousPage = computed(() => currentPage.value > 0)
   const hasNextPage = computed(() => currentPage.value < totalPages.value - 1)
 
@@ -49,12 +34,21 @@ export const usePartsStore = defineStore('parts', () => {
     isLoading.value = true
     error.value = null
     try {
-      const response = await partsApi.getAll(
-        page,
-        pageSize.value,
-        sortField.value ?? undefined,
-        sortDirection.value
-      )
+      const filtered = Boolean(selectedType.value || searchQuery.value)
+      const response = filtered
+        ? await partsApi.query(
+            { type: selectedType.value ?? undefined, q: searchQuery.value || undefined },
+            page,
+            pageSize.value,
+            sortField.value ?? undefined,
+            sortDirection.value
+          )
+        : await partsApi.getAll(
+            page,
+            pageSize.value,
+            sortField.value ?? undefined,
+            sortDirection.value
+          )
       parts.value = response.content
       currentPage.value = response.pageNumber
       totalElements.value = response.totalElements
@@ -84,40 +78,9 @@ export const usePartsStore = defineStore('parts', () => {
     }
   }
 
-  async function fetchByType(type: PartType) {
-    isLoading.value = true
-    error.value = null
-    try {
-      typeFilterResults.value = await partsApi.getByType(type)
-    } catch (e) {
-      if (e instanceof ApiException) {
-        error.value = e.userMessage
-      } else if (e instanceof Error) {
-        error.value = `Failed to load parts: ${e.message}`
-      } else {
-        error.value = 'Failed to load parts. Please check your connection and try again.'
-      }
-    } finally {
-      isLoading.value = false
-    }
-  }
-
   async function searchServer(query: string) {
-    isLoading.value = true
-    error.value = null
-    try {
-      searchResults.value = await partsApi.search(query)
-    } catch (e) {
-      if (e instanceof ApiException) {
-        error.value = e.userMessage
-      } else if (e instanceof Error) {
-        error.value = `Search failed: ${e.message}`
-      } else {
-        error.value = 'Search failed. Please try again.'
-      }
-    } finally {
-      isLoading.value = false
-    }
+    searchQuery.value = query
+    await fetchAll(0)
   }
 
   async function createPart(data: PartCreateRequest): Promise<Part> {
@@ -152,13 +115,7 @@ export const usePartsStore = defineStore('parts', () => {
   async function deletePart(id: number): Promise<void> {
     try {
       await partsApi.delete(id)
-      if (searchQuery.value) {
-        await searchServer(searchQuery.value)
-      } else if (selectedType.value) {
-        await fetchByType(selectedType.value)
-      } else {
-        await fetchAll(currentPage.value)
-      }
+      await fetchAll(currentPage.value)
     } catch (e) {
       if (e instanceof ApiException) {
         throw e
@@ -169,13 +126,7 @@ export const usePartsStore = defineStore('parts', () => {
 
   function setTypeFilter(type: PartType | null) {
     selectedType.value = type
-    if (!searchQuery.value) {
-      if (type) {
-        fetchByType(type)
-      } else {
-        fetchAll(0)
-      }
-    }
+    fetchAll(0)
   }
 
   function setSearchQuery(query: string) {
@@ -213,7 +164,6 @@ export const usePartsStore = defineStore('parts', () => {
     searchQuery,
     filteredParts,
     totalParts,
-    isPaginated,
     currentPage,
     totalPages,
     hasPreviousPage,
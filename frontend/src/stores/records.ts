@@ -7,8 +7,6 @@ import { ApiException } from '@/api/client'
 
 export const useRecordsStore = defineStore('records', () => {
   const records = ref<VinylRecord[]>([])
-  const searchResults = ref<VinylRecord[]>([])
-  const genreFilterResults = ref<VinylRecord[]>([])
   const isLoading = ref(false)
   const error = ref<string | null>(null)
   const selectedGenre = ref<Genre | null>(null)
@@ -24,24 +22,11 @@ export const useRecordsStore = defineStore('records', () => {
   const sortField = ref<string | null>(null)
   const sortDirection = ref<SortDirection>('ASC')
 
-  const filteredRecords = computed(() => {
-    if (searchQuery.value) {
-      const source = searchResults.value
-      if (selectedGenre.value) {
-        return source.filter(r => r.genre === selectedGenre.value)
-      }
-      return source
-    }
-    if (selectedGenre.value) {
-      return genreFilterResults.value
-    }
-    return records.value
-  })
+  // Genre and search filters are applied server-side, so the current page is already filtered
+  const filteredRecords = computed(() => records.value)
 
   const totalRecords = computed(() => totalElements.value)
 
-  const isPaginated = computed(() => !searchQuery.value && !selectedGenre.value)
-
   const hasPreviousPage = computed(() => currentPage.value > 0)
   const hasNextPage = computed(() => currentPage.value < totalPages.value - 1)
 
@@ -49,12 +34,21 @@ export const useRecordsStore = defineStore('records', () => {
     isLoading.value = true
     error.value = null
     try {
-      const response = await recordsApi.getAll(
-        page,
-        pageSize.value,
-        sortField.value ?? undefined,
-        sortDirection.value
-      )
+      const filtered = Boolean(selectedGenre.value || searchQuery.value)
+      const response = filtered
+        ? await recordsApi.query(
+            { genre: selectedGenre.value ?? undefined, q: searchQuery.value || undefined },
+            page,
+            pageSize.value,
+            sortField.value ?? undefined,
+            sortDirection.value
+          )
+        : await recordsApi.getAll(
+            page,
+            pageSize.value,
+            sortField.value ?? undefined,
+            sortDirection.value
+          )
       records.value = response.content
       currentPage.value = response.pageNumber
       totalElements.value = response.totalElements
@@ -84,40 +78,9 @@ export const useRecordsStore = defineStore('records', () => {
     }
   }
 
-  async function fetchByGenre(genre: Genre) {
-    isLoading.value = true
-    error.value = null
-    try {
-      genreFilterResults.value = await recordsApi.getByGenre(genre)
-    } catch (e) {
-      if (e instanceof ApiException) {
-        error.value = e.userMessage
-      } else if (e instanceof Error) {
-        error.value = `Failed to load records: ${e.message}`
-      } else {
-        error.value = 'Failed to load records. Please check your connection and try again.'
-      }
-    } finally {
-      isLoading.value = false
-    }
-  }
-
   async function searchServer(query: string) {
-    isLoading.value = true
-    error.value = null
-    try {
-      searchResults.value = await recordsApi.search(query)
-    } catch (e) {
-      if (e instanceof ApiException) {
-        error.value = e.userMessage
-      } else if (e instanceof Error) {
-        error.value = `Search failed: ${e.message}`
-      } else {
-        error.value = 'Search failed. Please try again.'
-      }
-    } finally {
-      isLoading.value = false
-    }
+    searchQuery.value = query
+    await fetchAll(0)
   }
 
   async function createRecord(data: RecordCreateRequest): Promise<VinylRecord> {
@@ -152,13 +115,7 @@ export const useRecordsStore = defineStore('records', () => {
   async function deleteRecord(id: number): Promise<void> {
     try {
       await recordsApi.delete(id)
-      if (searchQuery.value) {
-        await searchServer(searchQuery.value)
-      } else if (selectedGenre.value) {
-        await fetchByGenre(selectedGenre.value)
-      } else {
-        await fetchAll(currentPage.value)
-      }
+      await fetchAll(currentPage.value)
     } catch (e) {
       if (e instanceof ApiException) {
         throw e
@@ -169,13 +126,7 @@ export const useRecordsStore = defineStore('records', () => {
 
   function setGenreFilter(genre: Genre | null) {
     selectedGenre.value = genre
-    if (!searchQuery.value) {
-      if (genre) {
-        fetchByGenre(genre)
-      } else {
-        fetchAll(0)
-      }
-    }
+    fetchAll(0)
   }
 
   function setSearchQuery(query: string) {
@@ -213,7 +164,6 @@ export const useRecordsStore = defineStore('records', () => {
     searchQuery,
     filteredRecords,
     totalRecords,
-    isPaginated,
     currentPage,
     totalPages,
     hasPreviousPage,
@@ -35,6 +35,15 @@ export interface PartUpdateRequest {
   notes?: string
 }
 
+export interface PartQuery {
+  type?: PartType
+  condition?: PartCondition
+  location?: string
+  quantityMin?: number
+  quantityMax?: number
+  q?: string
+}
+
 export type { Page } from './common'
 
 export const PART_TYPES: { value: PartType; label: string }[] = [
@@ -58,6 +58,16 @@ export interface RecordUpdateRequest {
   notes?: string
 }
 
+export interface RecordQuery {
+  genre?: Genre
+  condition?: RecordCondition
+  yearFrom?: number
+  yearTo?: number
+  purchasedFrom?: string
+  purchasedTo?: string
+  q?: string
+}
+
 export type { Page } from './common'
 
 export const GENRES: { value: Genre; label: string }[] = [
@@ -64,7 +64,13 @@ describe('Parts Store', () => {
   it('filters parts by type via server', async () => {
     vi.mocked(global.fetch).mockResolvedValueOnce({
       ok: true,
-      json: () => Promise.resolve([mockParts[0]])
+      json: () => Promise.resolve({
+        content: [mockParts[0]],
+        pageNumber: 0,
+        pageSize: 20,
+        totalElements: 1,
+        totalPages: 1
+      })
     } as Response)
 
     const store = usePartsStore()
@@ -74,12 +80,20 @@ describe('Parts Store', () => {
 
     expect(store.filteredParts).toHaveLength(1)
     expect(store.filteredParts[0].type).toBe('BRAKE')
+    expect(vi.mocked(global.fetch).mock.calls[0][0]).toContain('/parts/query?')
+    expect(vi.mocked(global.fetch).mock.calls[0][0]).toContain('type=BRAKE')
   })
 
   it('filters parts by search query', async () => {
     vi.mocked(global.fetch).mockResolvedValueOnce({
       ok: true,
-      json: () => Promise.resolve([mockParts[0]])
+      json: () => Promise.resolve({
+        content: [mockParts[0]],
+        pageNumber: 0,
+        pageSize: 20,
+        totalElements: 1,
+        totalPages: 1
+      })
     } as Response)
 
     const store = usePartsStore()
@@ -88,6 +102,7 @@ describe('Parts Store', () => {
 
     expect(store.filteredParts).toHaveLength(1)
     expect(store.filteredParts[0].name).toContain('Shimano')
+    expect(store.totalParts).toBe(1)
   })
 
   it('gets part by id', () => {
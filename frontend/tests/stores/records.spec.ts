@@ -66,7 +66,13 @@ describe('Records Store', () => {
   it('filters records by genre via server', async () => {
     vi.mocked(global.fetch).mockResolvedValueOnce({
       ok: true,
-      json: () => Promise.resolve([mockRecords[0]])
+      json: () => Promise.resolve({
+        content: [mockRecords[0]],
+        pageNumber: 0,
+        pageSize: 20,
+        totalElements: 1,
+        totalPages: 1
+      })
     } as Response)
 
     const store = useRecordsStore()
@@ -76,12 +82,20 @@ describe('Records Store', () => {
 
     expect(store.filteredRecords).toHaveLength(1)
     expect(store.filteredRecords[0].genre).toBe('ROCK')
+    expect(vi.mocked(global.fetch).mock.calls[0][0]).toContain('/records/query?')
+    expect(vi.mocked(global.fetch).mock.calls[0][0]).toContain('genre=ROCK')
   })
 
   it('filters records by search query', async () => {
     vi.mocked(global.fetch).mockResolvedValueOnce({
       ok: true,
-      json: () => Promise.resolve([mockRecords[0]])
+      json: () => Promise.resolve({
+        content: [mockRecords[0]],
+        pageNumber: 0,
+        pageSize: 20,
+        totalElements: 1,
+        totalPages: 1
+      })
     } as Response)
 
     const store = useRecordsStore()
@@ -0,0 +1,63 @@
+package ee.smit.inventory.common;
+
+/**
+ * Building and encoding (with Micronaut Serde) the page body returned by {@code GET /api/parts}.
+ */
+
+import ee.smit.inventory.part.Part;
+import ee.smit.inventory.part.dto.PartResponse;
+import io.micronaut.core.type.Argument;
+import io.micronaut.core.type.GenericArgument;
+import io.micronaut.data.model.Page;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.serde.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageResponseBenchmark {
+
+    private static final Argument<PageResponse<PartResponse>> PAGE_TYPE =
+            new GenericArgument<PageResponse<PartResponse>>() {};
+
+    @Param({"20", "100"})
+    int size;
+
+    private ObjectMapper objectMapper;
+    private Page<Part> entities;
+    private PageResponse<PartResponse> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = ObjectMapper.getDefault();
+        List<Part> parts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            parts.add(ResponseMappingBenchmark.part(i));
+        }
+        entities = Page.of(parts, Pageable.from(0, size), 10_000L);
+        page = PageResponse.from(entities, PartResponse::fromEntity);
+    }
+
+    @Benchmark
+    public PageResponse<PartResponse> from() {
+        return PageResponse.from(entities, PartResponse::fromEntity);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(PAGE_TYPE, page);
+    }
+}
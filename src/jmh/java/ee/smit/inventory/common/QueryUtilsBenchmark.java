@@ -0,0 +1,29 @@
+package ee.smit.inventory.common;
+
+/**
+ * LIKE escaping applied to every search term, for a term with nothing to escape and one with wildcards.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryUtilsBenchmark {
+
+    @Param({"shimano", "100%_cotton_tape"})
+    String term;
+
+    @Benchmark
+    public String escapeLikePattern() {
+        return QueryUtils.escapeLikePattern(term);
+    }
+}
@@ -0,0 +1,59 @@
+package ee.smit.inventory.common;
+
+/**
+ * Entity to response mapping done for every item a read endpoint returns.
+ */
+
+import ee.smit.inventory.part.Part;
+import ee.smit.inventory.part.PartCondition;
+import ee.smit.inventory.part.PartType;
+import ee.smit.inventory.part.dto.PartResponse;
+import ee.smit.inventory.record.Genre;
+import ee.smit.inventory.record.RecordCondition;
+import ee.smit.inventory.record.VinylRecord;
+import ee.smit.inventory.record.dto.RecordResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseMappingBenchmark {
+
+    private Part part;
+    private VinylRecord record;
+
+    @Setup
+    public void setUp() {
+        part = part(1);
+        record = new VinylRecord(1L, "Abbey Road", "The Beatles", 1969, Genre.ROCK, "Local record store",
+                LocalDate.of(2020, 5, 1), RecordCondition.EXCELLENT, "Original pressing",
+                LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 2, 12, 0));
+    }
+
+    @Benchmark
+    public PartResponse partFromEntity() {
+        return PartResponse.fromEntity(part);
+    }
+
+    @Benchmark
+    public RecordResponse recordFromEntity() {
+        return RecordResponse.fromEntity(record);
+    }
+
+    static Part part(int i) {
+        return new Part((long) i, "Shimano brake pad " + i, "Resin pads for hydraulic disc brakes",
+                PartType.values()[i % PartType.values().length], "Garage shelf " + (i % 20), 1 + i % 9,
+                PartCondition.values()[i % PartCondition.values().length], null,
+                LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 2, 12, 0));
+    }
+}
@@ -0,0 +1,29 @@
+package ee.smit.inventory.exception;
+
+/**
+ * Field name extraction done for every constraint violation in a 400 response.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConstraintViolationExceptionHandlerBenchmark {
+
+    @Param({"create.request.name", "quantity"})
+    String propertyPath;
+
+    @Benchmark
+    public String extractFieldName() {
+        return ConstraintViolationExceptionHandler.extractFieldName(propertyPath);
+    }
+}
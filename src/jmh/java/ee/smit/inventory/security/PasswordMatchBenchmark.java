@@ -0,0 +1,31 @@
+package ee.smit.inventory.security;
+
+/**
+ * BCrypt verification done by every {@code POST /login}, at the cost factor (12) of the stored hashes.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordMatchBenchmark {
+
+    // mart's hash from AuthenticationProviderUserPassword
+    private static final String STORED_HASH = "$2a$12$AnBLNLp0.JrvxnnEh0IGQOFuGYrwCIIVfXCj1tg6DsoFVLTHheLhW";
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("mart123", STORED_HASH);
+    }
+}
@@ -0,0 +1,102 @@
+package ee.smit.inventory;
+
+/**
+ * Compares the BLOCKING executor with virtual-thread request execution under the same burst of reads.
+ * Throughput and latency percentiles are printed rather than asserted, since they depend on the machine.
+ * Run with {@code ./gradlew loadTest}; tune with {@code -Dloadtest.concurrency} and {@code -Dloadtest.seconds}.
+ */
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.exceptions.HttpClientException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 200);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.seconds", 20));
+    private static final int SEED_PARTS = 500;
+
+    private record Result(Histogram latencyMicros, long errors, Duration duration) {
+
+        double throughput() {
+            return latencyMicros.getTotalCount() / (double) duration.toSeconds();
+        }
+
+        double millisAt(double percentile) {
+            return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    @Test
+    void should_compare_blocking_and_virtual_execution_modes() {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String mode : List.of("blocking", "virtual")) {
+            results.put(mode, run(mode));
+        }
+
+        System.out.printf("%nGET /api/parts/query, %d concurrent clients, %ds per mode%n", CONCURRENCY, DURATION.toSeconds());
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %8s%n", "mode", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        results.forEach((mode, result) -> System.out.printf("%-10s %10d %10.1f %10.2f %10.2f %10.2f %8d%n",
+                mode, result.latencyMicros().getTotalCount(), result.throughput(),
+                result.millisAt(50), result.millisAt(99), result.latencyMicros().getMaxValue() / 1000.0,
+                result.errors()));
+
+        results.values().forEach(result -> assertThat(result.latencyMicros().getTotalCount()).isPositive());
+    }
+
+    private Result run(String mode) {
+        try (EmbeddedServer server = LoadTestSupport.start(Map.of("inventory.execution.mode", mode));
+             HttpClient client = server.getApplicationContext().createBean(HttpClient.class, server.getURL())) {
+            BlockingHttpClient http = client.toBlocking();
+            String token = LoadTestSupport.login(http);
+            // Both modes query the same table, so each starts from the same seed rather than the previous run's
+            LoadTestSupport.resetParts(server);
+            LoadTestSupport.seedParts(http, token, SEED_PARTS);
+
+            drive(http, token, WARMUP, new ConcurrentHistogram(3), new AtomicLong());
+            Histogram latencyMicros = new ConcurrentHistogram(3);
+            AtomicLong errors = new AtomicLong();
+            drive(http, token, DURATION, latencyMicros, errors);
+            return new Result(latencyMicros, errors.get(), DURATION);
+        }
+    }
+
+    private void drive(BlockingHttpClient http, String token, Duration duration, Histogram latencyMicros,
+                       AtomicLong errors) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                HttpRequest<?> request = HttpRequest.GET("/api/parts/query?q=part&size=20&page=" + (i % 10))
+                        .bearerAuth(token);
+                clients.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            http.exchange(request, String.class);
+                            latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        } catch (HttpClientException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
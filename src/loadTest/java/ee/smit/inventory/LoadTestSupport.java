@@ -0,0 +1,84 @@
+package ee.smit.inventory;
+
+/**
+ * Server start-up, login and seeding shared by the load tests.
+ */
+
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.common.TableChangedEvent;
+import ee.smit.inventory.part.PartCondition;
+import ee.smit.inventory.part.PartType;
+import ee.smit.inventory.part.dto.PartCreateRequest;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.core.type.Argument;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.security.token.render.BearerAccessRefreshToken;
+import io.micronaut.transaction.TransactionOperations;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class LoadTestSupport {
+
+    static final String USERNAME = "mart";
+    static final String PASSWORD = "mart123";
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private LoadTestSupport() {}
+
+    /**
+     * Starts the application on a random port against the shared Testcontainers PostgreSQL.
+     * Tests sample every trace into memory; under load that would skew the numbers and fill the heap,
+     * so tracing is switched off unless the caller picks a sampler.
+     */
+    static EmbeddedServer start(Map<String, Object> properties) {
+        Map<String, Object> merged = new HashMap<>(properties);
+        merged.putIfAbsent("otel.traces.sampler", "always_off");
+        return ApplicationContext.run(EmbeddedServer.class, merged, "test");
+    }
+
+    static String login(BlockingHttpClient http) {
+        return http.retrieve(HttpRequest.POST("/login", Map.of("username", USERNAME, "password", PASSWORD)),
+                BearerAccessRefreshToken.class).getAccessToken();
+    }
+
+    static PartCreateRequest part(int i) {
+        return new PartCreateRequest("Load test part " + i, "Seeded part " + i,
+                PartType.values()[i % PartType.values().length], "Shelf " + (i % 20), 1 + i % 9,
+                PartCondition.values()[i % PartCondition.values().length], null);
+    }
+
+    /**
+     * Empties the parts table, so a run sees only what it seeds and not what earlier runs left behind
+     * in the shared container.
+     */
+    @SuppressWarnings("unchecked")
+    static void resetParts(EmbeddedServer server) {
+        ApplicationContext context = server.getApplicationContext();
+        JdbcOperations jdbcOperations = context.getBean(JdbcOperations.class);
+        TransactionOperations<Connection> transactionOperations =
+                context.getBean(Argument.of(TransactionOperations.class, Connection.class));
+        transactionOperations.executeWrite(status -> {
+            jdbcOperations.prepareStatement("TRUNCATE parts", statement -> statement.execute());
+            context.getEventPublisher(TableChangedEvent.class).publishEvent(new TableChangedEvent("parts"));
+            return null;
+        });
+    }
+
+    static void seedParts(BlockingHttpClient http, String token, int count) {
+        for (int from = 0; from < count; from += SEED_BATCH_SIZE) {
+            List<PartCreateRequest> parts = new ArrayList<>();
+            for (int i = from; i < Math.min(count, from + SEED_BATCH_SIZE); i++) {
+                parts.add(part(i));
+            }
+            http.retrieve(HttpRequest.POST("/api/parts/bulk", parts).bearerAuth(token), BulkImportResponse.class);
+        }
+    }
+}
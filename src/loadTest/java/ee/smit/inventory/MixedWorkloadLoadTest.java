@@ -0,0 +1,208 @@
+package ee.smit.inventory;
+
+/**
+ * Drives one backend instance with a mixed parts workload (login, paged list, search, get by id, create,
+ * update, delete) at each of a fixed set of concurrency levels, and reports throughput, latency percentiles
+ * and error rate per endpoint. Every endpoint's latency distribution is also written as HdrHistogram
+ * percentile output to {@code build/reports/loadtest/c<concurrency>-<endpoint>.hgrm}.
+ * Each level starts from a freshly seeded parts table, so levels are compared on the same data.
+ * Run with {@code ./gradlew loadTest --tests '*MixedWorkloadLoadTest'}; tune with {@code -Dloadtest.levels=10,50,200},
+ * {@code -Dloadtest.seed-parts}, {@code -Dloadtest.seconds} and {@code -Dloadtest.warmup-seconds}.
+ */
+
+import ee.smit.inventory.part.Part;
+import ee.smit.inventory.part.PartCondition;
+import ee.smit.inventory.part.PartRepository;
+import ee.smit.inventory.part.dto.PartResponse;
+import ee.smit.inventory.part.dto.PartUpdateRequest;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.exceptions.HttpClientException;
+import io.micronaut.http.uri.UriBuilder;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MixedWorkloadLoadTest {
+
+    private static final List<Integer> CONCURRENCY_LEVELS = Arrays.stream(
+                    System.getProperty("loadtest.levels", "10,50,200").split(","))
+            .map(String::trim)
+            .map(Integer::valueOf)
+            .toList();
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.seconds", 20));
+    private static final int SEED_PARTS = Integer.getInteger("loadtest.seed-parts", 5000);
+    private static final Path REPORT_DIR = Path.of(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+
+    /**
+     * Weights are percentages of all requests. Login is rare because clients reuse their token, and deletes
+     * only remove parts the same client created, so seeded parts stay readable for the whole run.
+     */
+    private enum Endpoint {
+        LOGIN("POST /login", 2),
+        LIST("GET /api/parts", 30),
+        SEARCH("GET /api/parts/search", 20),
+        GET("GET /api/parts/{id}", 25),
+        CREATE("POST /api/parts", 10),
+        UPDATE("PUT /api/parts/{id}", 8),
+        DELETE("DELETE /api/parts/{id}", 5);
+
+        final String route;
+        final int weight;
+
+        Endpoint(String route, int weight) {
+            this.route = route;
+            this.weight = weight;
+        }
+
+        static Endpoint pick(int percent) {
+            int cumulative = 0;
+            for (Endpoint endpoint : values()) {
+                cumulative += endpoint.weight;
+                if (percent < cumulative) {
+                    return endpoint;
+                }
+            }
+            return GET;
+        }
+    }
+
+    private record Stats(Histogram latencyMicros, AtomicLong errors) {
+
+        Stats() {
+            this(new ConcurrentHistogram(3), new AtomicLong());
+        }
+
+        double millisAt(double percentile) {
+            return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        double errorRate() {
+            long total = latencyMicros.getTotalCount() + errors.get();
+            return total == 0 ? 0 : 100.0 * errors.get() / total;
+        }
+    }
+
+    @Test
+    void should_report_throughput_latency_and_errors_per_endpoint() throws IOException {
+        try (EmbeddedServer server = LoadTestSupport.start(Map.of());
+             HttpClient client = server.getApplicationContext().createBean(HttpClient.class, server.getURL())) {
+            BlockingHttpClient http = client.toBlocking();
+            String token = LoadTestSupport.login(http);
+            Files.createDirectories(REPORT_DIR);
+
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                drive(http, token, reseed(server, http, token), concurrency, WARMUP);
+                Map<Endpoint, Stats> stats = drive(http, token, reseed(server, http, token), concurrency, DURATION);
+                report(concurrency, stats);
+
+                assertThat(stats.get(Endpoint.GET).latencyMicros().getTotalCount()).isPositive();
+            }
+        }
+    }
+
+    /**
+     * Creates outnumber deletes, so the table grows during a run. Every warm-up and measurement starts from an
+     * empty table with the same seed, and reads and updates only target the seeded ids.
+     */
+    private List<Long> reseed(EmbeddedServer server, BlockingHttpClient http, String token) {
+        LoadTestSupport.resetParts(server);
+        LoadTestSupport.seedParts(http, token, SEED_PARTS);
+        return server.getApplicationContext().getBean(PartRepository.class).findAll().stream()
+                .map(Part::getId)
+                .toList();
+    }
+
+    private Map<Endpoint, Stats> drive(BlockingHttpClient http, String token, List<Long> ids, int concurrency,
+                                       Duration duration) {
+        Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.execute(() -> {
+                    Deque<Long> created = new ArrayDeque<>();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = Endpoint.pick(random.nextInt(100));
+                        if (endpoint == Endpoint.DELETE && created.isEmpty()) {
+                            endpoint = Endpoint.CREATE;
+                        }
+                        long start = System.nanoTime();
+                        try {
+                            call(http, token, endpoint, ids, created, random);
+                            stats.get(endpoint).latencyMicros()
+                                    .recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        } catch (HttpClientException e) {
+                            stats.get(endpoint).errors().incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        return stats;
+    }
+
+    private void call(BlockingHttpClient http, String token, Endpoint endpoint, List<Long> ids, Deque<Long> created,
+                      ThreadLocalRandom random) {
+        Long id = ids.get(random.nextInt(ids.size()));
+        switch (endpoint) {
+            case LOGIN -> LoadTestSupport.login(http);
+            case LIST -> http.exchange(HttpRequest.GET("/api/parts?size=20&page=" + random.nextInt(50))
+                    .bearerAuth(token), String.class);
+            case SEARCH -> http.exchange(HttpRequest.GET(UriBuilder.of("/api/parts/search")
+                    .queryParam("q", "part " + random.nextInt(SEED_PARTS))
+                    .build()).bearerAuth(token), String.class);
+            case GET -> http.exchange(HttpRequest.GET("/api/parts/" + id).bearerAuth(token), String.class);
+            case CREATE -> created.push(http.retrieve(HttpRequest.POST("/api/parts",
+                    LoadTestSupport.part(random.nextInt(SEED_PARTS))).bearerAuth(token), PartResponse.class).id());
+            case UPDATE -> http.exchange(HttpRequest.PUT("/api/parts/" + id, new PartUpdateRequest(null, null, null,
+                    null, 1 + random.nextInt(9), PartCondition.GOOD, null)).bearerAuth(token), String.class);
+            case DELETE -> http.exchange(HttpRequest.DELETE("/api/parts/" + created.pop()).bearerAuth(token));
+        }
+    }
+
+    private void report(int concurrency, Map<Endpoint, Stats> stats) throws IOException {
+        System.out.printf("%nMixed workload, %d concurrent clients, %ds%n", concurrency, DURATION.toSeconds());
+        System.out.printf("%-24s %9s %9s %9s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors %");
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Stats result = entry.getValue();
+            Histogram latencyMicros = result.latencyMicros();
+            System.out.printf("%-24s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %8.2f%n",
+                    entry.getKey().route, latencyMicros.getTotalCount(),
+                    latencyMicros.getTotalCount() / (double) DURATION.toSeconds(),
+                    result.millisAt(50), result.millisAt(95), result.millisAt(99),
+                    latencyMicros.getMaxValue() / 1000.0, result.errorRate());
+            Path file = REPORT_DIR.resolve("c" + concurrency + "-" + entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                // Values are recorded in microseconds and reported in milliseconds
+                latencyMicros.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+}
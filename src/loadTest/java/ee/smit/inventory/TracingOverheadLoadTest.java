@@ -0,0 +1,129 @@
+package ee.smit.inventory;
+
+/**
+ * Measures what tracing costs at full load: the same burst of parts searches and queries runs once with tracing
+ * off and once with the production head sampler ({@code parentbased_traceidratio}), and the drop in throughput
+ * and the change in p99 are printed against the 2% budget. Sampled spans go to the tests' in-memory exporter,
+ * which is emptied as the run goes so it cannot fill the heap. Like the other load tests it reports rather than
+ * asserts, since the numbers depend on the machine.
+ * Run with {@code ./gradlew loadTest --tests '*TracingOverheadLoadTest'}; tune with {@code -Dloadtest.concurrency},
+ * {@code -Dloadtest.seconds} and {@code -Dloadtest.sample-ratio} (default 0.05, as in application.yml).
+ */
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.exceptions.HttpClientException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingOverheadLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 200);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.seconds", 20));
+    private static final String SAMPLE_RATIO = System.getProperty("loadtest.sample-ratio", "0.05");
+    private static final double BUDGET_PERCENT = 2.0;
+    private static final int SEED_PARTS = 500;
+
+    private record Result(Histogram latencyMicros, long errors, Duration duration) {
+
+        double throughput() {
+            return latencyMicros.getTotalCount() / (double) duration.toSeconds();
+        }
+
+        double millisAt(double percentile) {
+            return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    @Test
+    void should_compare_throughput_with_tracing_off_and_sampled() {
+        Map<String, Result> results = new LinkedHashMap<>();
+        results.put("off", run(Map.of("otel.traces.sampler", "always_off")));
+        results.put("sampled", run(Map.of(
+                "otel.traces.sampler", "parentbased_traceidratio",
+                "otel.traces.sampler.arg", SAMPLE_RATIO)));
+
+        System.out.printf("%nGET /api/parts/search and /api/parts/query, %d concurrent clients, %ds per run, sample ratio %s%n",
+                CONCURRENCY, DURATION.toSeconds(), SAMPLE_RATIO);
+        System.out.printf("%-10s %10s %10s %10s %10s %8s%n", "tracing", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        results.forEach((tracing, result) -> System.out.printf("%-10s %10d %10.1f %10.2f %10.2f %8d%n",
+                tracing, result.latencyMicros().getTotalCount(), result.throughput(),
+                result.millisAt(50), result.millisAt(99), result.errors()));
+        Result off = results.get("off");
+        Result sampled = results.get("sampled");
+        double throughputLoss = 100.0 * (off.throughput() - sampled.throughput()) / off.throughput();
+        double p99Change = 100.0 * (sampled.millisAt(99) - off.millisAt(99)) / off.millisAt(99);
+        System.out.printf("Tracing overhead: %.2f%% throughput, %+.2f%% p99 (budget %.0f%%)%n",
+                throughputLoss, p99Change, BUDGET_PERCENT);
+
+        results.values().forEach(result -> assertThat(result.latencyMicros().getTotalCount()).isPositive());
+    }
+
+    private Result run(Map<String, Object> properties) {
+        try (EmbeddedServer server = LoadTestSupport.start(properties);
+             HttpClient client = server.getApplicationContext().createBean(HttpClient.class, server.getURL())) {
+            BlockingHttpClient http = client.toBlocking();
+            String token = LoadTestSupport.login(http);
+            // Both runs query the same table, so each starts from the same seed rather than the previous run's
+            LoadTestSupport.resetParts(server);
+            LoadTestSupport.seedParts(http, token, SEED_PARTS);
+            InMemorySpanExporter spanExporter = server.getApplicationContext().getBean(InMemorySpanExporter.class);
+
+            drive(http, token, WARMUP, spanExporter, new ConcurrentHistogram(3), new AtomicLong());
+            Histogram latencyMicros = new ConcurrentHistogram(3);
+            AtomicLong errors = new AtomicLong();
+            drive(http, token, DURATION, spanExporter, latencyMicros, errors);
+            return new Result(latencyMicros, errors.get(), DURATION);
+        }
+    }
+
+    private void drive(BlockingHttpClient http, String token, Duration duration, InMemorySpanExporter spanExporter,
+                       Histogram latencyMicros, AtomicLong errors) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    spanExporter.reset();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+            for (int i = 0; i < CONCURRENCY; i++) {
+                HttpRequest<?> request = (i % 2 == 0
+                        ? HttpRequest.GET("/api/parts/search?q=part")
+                        : HttpRequest.GET("/api/parts/query?q=part&size=20&page=" + (i % 10)))
+                        .bearerAuth(token);
+                clients.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            http.exchange(request, String.class);
+                            latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        } catch (HttpClientException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
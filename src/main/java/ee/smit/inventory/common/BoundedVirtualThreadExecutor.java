@@ -0,0 +1,74 @@
+package ee.smit.inventory.common;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a new virtual thread per task but lets at most {@code maxConcurrency} tasks run at once.
+ * Tasks over the limit park on a fair semaphore inside their own virtual thread, which costs no carrier
+ * thread, instead of all piling into the Hikari pool and timing out there.
+ */
+class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Tasks started but still waiting for a permit; an estimate, like {@link Semaphore#getQueueLength()}.
+     */
+    int queuedTasks() {
+        return permits.getQueueLength();
+    }
+
+    int activeTasks() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
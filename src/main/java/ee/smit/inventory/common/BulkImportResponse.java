@@ -0,0 +1,23 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk import. Items are identified by their zero-based position in the request body;
+ * only the first {@link #MAX_REPORTED_ERRORS} failures are listed, while {@code failed} counts all of them.
+ */
+@Serdeable
+public record BulkImportResponse(
+        int received,
+        int inserted,
+        int failed,
+        List<ItemError> errors
+) {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Serdeable
+    public record ItemError(int index, Map<String, String> errors) {}
+}
@@ -0,0 +1,9 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * Outcome of a filter-based bulk update or delete.
+ */
+@Serdeable
+public record BulkWriteResponse(int affected) {}
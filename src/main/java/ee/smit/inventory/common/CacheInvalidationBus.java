@@ -0,0 +1,199 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.transaction.TransactionOperations;
+import io.micronaut.transaction.annotation.TransactionalEventListener;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Carries {@link TableChangedEvent}s between backend replicas over PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Local writes are announced with {@code pg_notify} inside the writing transaction, so PostgreSQL delivers
+ * them only if and when it commits. Every node keeps one dedicated listening connection, opened outside the
+ * Hikari pool, and republishes notifications from other nodes as remote events, which the caches handle
+ * exactly like local ones.
+ * <p>
+ * Notifications sent while a node is not listening are lost, so whenever the listening connection drops
+ * the node flushes its caches, and flushes them again once it is listening on a fresh connection.
+ */
+@Singleton
+@Requires(property = "inventory.cache.invalidation.enabled", notEquals = "false")
+public class CacheInvalidationBus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final List<String> TABLES = List.of("parts", "vinyl_records");
+    private static final int POLL_TIMEOUT_MILLIS = 10_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final JdbcOperations jdbcOperations;
+    private final TransactionOperations<Connection> transactionOperations;
+    private final ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+    private final String channel;
+    private final Duration reconnectDelay;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile Connection listenConnection;
+    private Thread listener;
+
+    public CacheInvalidationBus(JdbcOperations jdbcOperations,
+                                TransactionOperations<Connection> transactionOperations,
+                                ApplicationEventPublisher<TableChangedEvent> eventPublisher,
+                                @Value("${inventory.cache.invalidation.channel:inventory_cache_invalidation}") String channel,
+                                @Value("${inventory.cache.invalidation.reconnect-delay:5s}") Duration reconnectDelay,
+                                @Value("${datasources.default.url}") String url,
+                                @Value("${datasources.default.username}") String username,
+                                @Value("${datasources.default.password}") String password) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid cache invalidation channel name: " + channel);
+        }
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.eventPublisher = eventPublisher;
+        this.channel = channel;
+        this.reconnectDelay = reconnectDelay;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Queues the notification on the writing transaction; PostgreSQL drops it if the transaction rolls back.
+     */
+    @TransactionalEventListener(TransactionalEventListener.TransactionPhase.BEFORE_COMMIT)
+    public void onTableChanged(TableChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        String payload = nodeId + " " + event.table() + " " + (event.id() != null ? event.id() : "*");
+        jdbcOperations.prepareStatement("SELECT pg_notify(?, ?)", statement -> {
+            statement.setString(1, channel);
+            statement.setString(2, payload);
+            return statement.execute();
+        });
+    }
+
+    @EventListener
+    void onStartup(StartupEvent event) {
+        running = true;
+        listener = Thread.ofPlatform().name("cache-invalidation-listener").daemon().start(this::listen);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        closeQuietly(listenConnection);
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                listenConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // Anything committed before LISTEN took effect may have been missed
+                flushAll();
+                LOG.info("Listening for cache invalidations on channel {}", channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        apply(notifications);
+                    } else if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                        throw new SQLException("Cache invalidation connection is no longer valid");
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warn("Cache invalidation listener failed, flushing caches and reconnecting in {}",
+                        reconnectDelay, e);
+                try {
+                    flushAll();
+                } catch (RuntimeException flushFailure) {
+                    LOG.warn("Failed to flush caches after losing the invalidation connection", flushFailure);
+                }
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(PGNotification[] notifications) {
+        List<TableChangedEvent> events = new ArrayList<>();
+        for (PGNotification notification : notifications) {
+            String[] parts = notification.getParameter().split(" ");
+            if (parts.length != 3 || !(parts[2].equals("*") || parts[2].chars().allMatch(Character::isDigit))) {
+                LOG.warn("Ignoring malformed cache invalidation: {}", notification.getParameter());
+                continue;
+            }
+            if (nodeId.equals(parts[0])) {
+                continue;
+            }
+            Long id = "*".equals(parts[2]) ? null : Long.valueOf(parts[2]);
+            events.add(new TableChangedEvent(parts[1], id, true));
+        }
+        publish(events);
+    }
+
+    private void flushAll() {
+        publish(TABLES.stream().map(table -> new TableChangedEvent(table, null, true)).toList());
+    }
+
+    /**
+     * Cache listeners run after commit, so remote events are published inside an otherwise empty transaction.
+     */
+    private void publish(List<TableChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        transactionOperations.executeRead(status -> {
+            events.forEach(eventPublisher::publishEvent);
+            return null;
+        });
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOG.debug("Failed to close cache invalidation connection", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.core.annotation.Nullable;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes RFC 4180 CSV rows directly into Netty buffers.
+ * Fields containing a comma, quote or line break are quoted, embedded quotes are doubled
+ * and rows end with CRLF.
+ */
+public final class CsvEncoder {
+
+    private CsvEncoder() {}
+
+    public static void writeRow(ByteBuf buffer, @Nullable Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.writeByte(',');
+            }
+            if (values[i] != null) {
+                writeField(buffer, values[i].toString());
+            }
+        }
+        buffer.writeByte('\r').writeByte('\n');
+    }
+
+    private static void writeField(ByteBuf buffer, String value) {
+        if (!needsQuoting(value)) {
+            buffer.writeCharSequence(value, StandardCharsets.UTF_8);
+            return;
+        }
+        buffer.writeByte('"');
+        int start = 0;
+        int quote;
+        while ((quote = value.indexOf('"', start)) >= 0) {
+            buffer.writeCharSequence(value.substring(start, quote + 1), StandardCharsets.UTF_8);
+            buffer.writeByte('"');
+            start = quote + 1;
+        }
+        buffer.writeCharSequence(value.substring(start), StandardCharsets.UTF_8);
+        buffer.writeByte('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package ee.smit.inventory.common;
+
+import ee.smit.inventory.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated listing: the sort key and id of the last row on the previous page.
+ * Serialized as an opaque URL-safe token so clients pass it back unchanged.
+ */
+public record Cursor(String sort, boolean descending, String value, long id) {
+
+    private static final String SEPARATOR = ":";
+
+    public String encode() {
+        String raw = sort + SEPARATOR + (descending ? "DESC" : "ASC") + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new ValidationException("after", "Invalid cursor");
+            }
+            return new Cursor(parts[0], "DESC".equals(parts[1]), parts[3], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("after", "Invalid cursor");
+        }
+    }
+}
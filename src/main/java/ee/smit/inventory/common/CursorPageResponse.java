@@ -0,0 +1,28 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cursor-paginated response. Unlike {@link PageResponse} it carries no total count,
+ * so producing it never requires a count query.
+ */
+@Serdeable
+public record CursorPageResponse<T>(
+        List<T> content,
+        int pageSize,
+        @Nullable String nextCursor,
+        boolean last
+) {
+    public static <E, T> CursorPageResponse<T> from(KeysetPage<E> page, Function<E, T> mapper) {
+        return new CursorPageResponse<>(
+                page.content().stream().map(mapper).toList(),
+                page.size(),
+                page.next() != null ? page.next().encode() : null,
+                page.next() == null
+        );
+    }
+}
@@ -0,0 +1,160 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Strong ETags for conditional GETs.
+ * Single items are tagged by id and {@code updated_at}. Collections are tagged by a fingerprint of the whole
+ * table (row count from {@code table_counters}, version summed over its {@code table_versions} slots) combined
+ * with the request URI, so the tag can be checked without running the actual query. The version is bumped by the
+ * write triggers themselves, so unlike a timestamp it cannot be skewed by a replica's clock or a slow commit.
+ * Both have a blocking JDBC form and a non-blocking R2DBC form for the endpoints that run on the event loop.
+ */
+@Singleton
+public class ETags {
+
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private final JdbcOperations jdbcOperations;
+    private final ConnectionFactory connectionFactory;
+    private final QueryResultCache queryResultCache;
+
+    public ETags(JdbcOperations jdbcOperations, ConnectionFactory connectionFactory,
+                 QueryResultCache queryResultCache) {
+        this.jdbcOperations = jdbcOperations;
+        this.connectionFactory = connectionFactory;
+        this.queryResultCache = queryResultCache;
+    }
+
+    private record Fingerprint(long count, long version) {}
+
+    public static String forEntity(Long id, LocalDateTime updatedAt) {
+        return "\"" + id + "-" + updatedAt.toEpochSecond(ZoneOffset.UTC) + "." + updatedAt.getNano() + "\"";
+    }
+
+    /**
+     * The fingerprint is cached per table version, so repeated checks between writes do not hit the database.
+     *
+     * @param table a table with a {@code table_counters} total and {@code table_versions} slots
+     */
+    public String forCollection(String table, HttpRequest<?> request) {
+        Fingerprint fingerprint = queryResultCache.get(table, "fingerprint", List.of(),
+                Argument.of(Fingerprint.class), () -> loadFingerprint(table));
+        return tag(fingerprint, request);
+    }
+
+    /**
+     * Same tag as {@link #forCollection}, with the fingerprint read over R2DBC on a cache miss.
+     */
+    public Mono<String> forCollectionAsync(String table, HttpRequest<?> request) {
+        return queryResultCache.getAsync(table, "fingerprint", List.of(),
+                        Argument.of(Fingerprint.class), () -> loadFingerprintAsync(table))
+                .map(fingerprint -> tag(fingerprint, request));
+    }
+
+    /**
+     * Answers {@code 304 Not Modified} when the request's {@code If-None-Match} matches {@code etag};
+     * otherwise builds the body. Both carry the ETag and require revalidation on every use.
+     */
+    public static <T> HttpResponse<T> conditional(HttpRequest<?> request, String etag, Supplier<T> body) {
+        MutableHttpResponse<T> response = matches(request.getHeaders().get(HttpHeaders.IF_NONE_MATCH), etag)
+                ? HttpResponse.notModified()
+                : HttpResponse.ok(body.get());
+        return response.header(HttpHeaders.ETAG, etag).header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+    }
+
+    /**
+     * Like {@link #conditional(HttpRequest, String, Supplier)}, but {@code body} is only subscribed to
+     * when the response is not {@code 304 Not Modified}.
+     */
+    public static <T> Mono<HttpResponse<T>> conditional(HttpRequest<?> request, String etag, Mono<T> body) {
+        Mono<MutableHttpResponse<T>> response = matches(request.getHeaders().get(HttpHeaders.IF_NONE_MATCH), etag)
+                ? Mono.just(HttpResponse.notModified())
+                : body.map(HttpResponse::ok);
+        return response.<HttpResponse<T>>map(it -> it.header(HttpHeaders.ETAG, etag)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL));
+    }
+
+    /**
+     * If-None-Match uses the weak comparison, so {@code W/} prefixes added by proxies are ignored.
+     */
+    static boolean matches(@Nullable String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Fingerprint loadFingerprint(String table) {
+        return jdbcOperations.prepareStatement(fingerprintSql("?"), statement -> {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return new Fingerprint(resultSet.getLong("row_count"), resultSet.getLong("version"));
+            }
+        });
+    }
+
+    private Mono<Fingerprint> loadFingerprintAsync(String table) {
+        Mono<Connection> connection = Mono.from(connectionFactory.create());
+        return Mono.usingWhen(connection,
+                it -> Mono.from(it.createStatement(fingerprintSql("$1")).bind(0, table).execute())
+                        .flatMap(result -> Mono.from(result.map((row, metadata) -> new Fingerprint(
+                                row.get("row_count", Long.class), row.get("version", Long.class))))),
+                Connection::close);
+    }
+
+    /**
+     * One row, so the count and the version come from the same snapshot; a table never written yet reads as zero.
+     */
+    private static String fingerprintSql(String tableParameter) {
+        return "SELECT COALESCE((SELECT row_count FROM table_counters"
+                + " WHERE table_name = t.name AND group_key = '*'), 0) AS row_count,"
+                + " CAST(COALESCE((SELECT SUM(version) FROM table_versions"
+                + " WHERE table_name = t.name), 0) AS BIGINT) AS version"
+                + " FROM (SELECT CAST(" + tableParameter + " AS VARCHAR) AS name) t";
+    }
+
+    private static String tag(Fingerprint fingerprint, HttpRequest<?> request) {
+        return "\"" + digest(fingerprint.count() + "|" + fingerprint.version() + "|" + request.getUri()) + "\"";
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Row counts for the current filter, broken down per facet.
+ * Each facet maps a value (an enum name or a decade) to the number of matching rows.
+ */
+@Serdeable
+public record FacetsResponse(
+        long total,
+        Map<String, Map<String, Long>> facets
+) {
+    /**
+     * Starts a facet with every enum value at zero, so values without matches are still listed.
+     */
+    public static Map<String, Long> zeroCounts(Enum<?>[] values) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Enum<?> value : values) {
+            counts.put(value.name(), 0L);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,12 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query with the cursor pointing past its last row.
+ * {@code next} is {@code null} when there are no further rows.
+ */
+public record KeysetPage<E>(List<E> content, int size, @Nullable Cursor next) {
+}
@@ -0,0 +1,101 @@
+package ee.smit.inventory.common;
+
+import ee.smit.inventory.exception.ValidationException;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import jakarta.inject.Singleton;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Executes keyset (seek) pagination queries.
+ * Rows are located with a row-value comparison on (sort column, id) so the composite indexes
+ * from V7 serve every page with a single index range scan, regardless of depth.
+ */
+@Singleton
+public class KeysetQueries {
+
+    private final JdbcOperations jdbcOperations;
+
+    public KeysetQueries(JdbcOperations jdbcOperations) {
+        this.jdbcOperations = jdbcOperations;
+    }
+
+    /**
+     * Sortable column of a keyset-paginated table.
+     *
+     * @param column    database column name, never taken from user input
+     * @param numeric   whether cursor values bind as integers rather than strings
+     * @param extractor reads the sort key from an entity to build the next cursor
+     */
+    public record Column<E>(String column, boolean numeric, Function<E, Object> extractor) {
+    }
+
+    public <E> KeysetPage<E> findPage(String table, Class<E> entityType, Function<E, Long> idExtractor,
+                                      String sort, Column<E> column, boolean descending,
+                                      @Nullable Cursor after, int size) {
+        if (after != null && (!after.sort().equals(sort) || after.descending() != descending)) {
+            throw new ValidationException("after", "Cursor does not match the requested sort");
+        }
+        boolean byId = "id".equals(column.column());
+        String comparison = descending ? "<" : ">";
+        String direction = descending ? "DESC" : "ASC";
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table);
+        if (after != null) {
+            sql.append(byId
+                    ? " WHERE id " + comparison + " ?"
+                    : " WHERE (" + column.column() + ", id) " + comparison + " (?, ?)");
+        }
+        sql.append(" ORDER BY ");
+        if (!byId) {
+            sql.append(column.column()).append(' ').append(direction).append(", ");
+        }
+        sql.append("id ").append(direction).append(" LIMIT ?");
+
+        List<E> rows = jdbcOperations.prepareStatement(sql.toString(), statement -> {
+            int index = 1;
+            if (after != null) {
+                if (!byId) {
+                    bindValue(statement, index++, column, after.value());
+                }
+                statement.setLong(index++, after.id());
+            }
+            // One extra row tells us whether another page follows
+            statement.setInt(index, size + 1);
+            List<E> result = new ArrayList<>(size + 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(jdbcOperations.readEntity(resultSet, entityType));
+                }
+            }
+            return result;
+        });
+
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, size, null);
+        }
+        List<E> content = rows.subList(0, size);
+        E last = content.get(size - 1);
+        Cursor next = new Cursor(sort, descending, String.valueOf(column.extractor().apply(last)), idExtractor.apply(last));
+        return new KeysetPage<>(List.copyOf(content), size, next);
+    }
+
+    private static void bindValue(PreparedStatement statement, int index, Column<?> column, String value)
+            throws SQLException {
+        if (column.numeric()) {
+            try {
+                statement.setLong(index, Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                throw new ValidationException("after", "Invalid cursor");
+            }
+        } else {
+            statement.setString(index, value);
+        }
+    }
+}
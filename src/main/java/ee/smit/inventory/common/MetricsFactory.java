@@ -0,0 +1,36 @@
+package ee.smit.inventory.common;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micronaut.context.annotation.Factory;
+import jakarta.inject.Singleton;
+
+/**
+ * Meter filters applied to every registry.
+ */
+@Factory
+public class MetricsFactory {
+
+    private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+
+    /**
+     * Publishes histogram buckets for the per-route server timers, so percentiles can be aggregated
+     * across instances in Prometheus instead of being computed per instance.
+     */
+    @Singleton
+    MeterFilter httpServerRequestHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!HTTP_SERVER_REQUESTS.equals(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
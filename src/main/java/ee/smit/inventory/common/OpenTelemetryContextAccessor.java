@@ -0,0 +1,57 @@
+package ee.smit.inventory.common;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Lets Reactor's automatic context propagation make the OpenTelemetry context stored under {@link #KEY} in the
+ * Reactor context current on the thread that delivers a signal, and restore the previous one afterwards.
+ * Reactor restores in the reverse order it set, so the scopes of a thread are kept on a stack.
+ */
+final class OpenTelemetryContextAccessor implements ThreadLocalAccessor<Context> {
+
+    static final String KEY = "otel.context";
+
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public Context getValue() {
+        return Context.current();
+    }
+
+    @Override
+    public void setValue(Context value) {
+        SCOPES.get().push(value.makeCurrent());
+    }
+
+    @Override
+    public void setValue() {
+        SCOPES.get().push(Context.root().makeCurrent());
+    }
+
+    @Override
+    public void restore(Context previousValue) {
+        close();
+    }
+
+    @Override
+    public void restore() {
+        close();
+    }
+
+    private static void close() {
+        Scope scope = SCOPES.get().poll();
+        if (scope != null) {
+            scope.close();
+        }
+    }
+}
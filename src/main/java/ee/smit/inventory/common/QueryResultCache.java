@@ -0,0 +1,65 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.cache.SyncCache;
+import io.micronaut.core.type.Argument;
+import io.micronaut.data.model.Pageable;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches query results keyed by (method, normalized arguments, table version).
+ * The version is read before the query runs, so a result can only ever be stored under a version
+ * that was current when it was loaded; after a committed write bumps the version every lookup misses
+ * and stale entries age out of the size-bounded cache on their own.
+ */
+@Singleton
+public class QueryResultCache {
+
+    public static final String CACHE_NAME = "query-results";
+
+    private final SyncCache<?> cache;
+    private final TableVersions tableVersions;
+
+    public QueryResultCache(@Named(CACHE_NAME) SyncCache<?> cache, TableVersions tableVersions) {
+        this.cache = cache;
+        this.tableVersions = tableVersions;
+    }
+
+    private record Key(String table, String method, List<?> arguments, long version) {}
+
+    /**
+     * @param arguments values that determine the result; must implement {@code equals}/{@code hashCode}
+     */
+    public <T> T get(String table, String method, List<?> arguments, Argument<T> type, Supplier<T> loader) {
+        Key key = new Key(table, method, arguments, tableVersions.current(table));
+        return cache.get(key, type, loader);
+    }
+
+    /**
+     * Non-blocking variant of {@link #get} for loaders that return a {@link Mono}. Concurrent misses
+     * for the same key each run the loader; the last result to arrive is the one kept.
+     */
+    public <T> Mono<T> getAsync(String table, String method, List<?> arguments, Argument<T> type,
+                                Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            Key key = new Key(table, method, arguments, tableVersions.current(table));
+            return cache.get(key, type)
+                    .map(Mono::just)
+                    .orElseGet(() -> loader.get().doOnNext(value -> cache.put(key, value)));
+        });
+    }
+
+    /**
+     * Stable key arguments for a pageable request, independent of the {@link Pageable} implementation.
+     */
+    public static List<Object> pageableKey(Pageable pageable) {
+        List<String> orders = pageable.getSort().getOrderBy().stream()
+                .map(order -> order.getProperty() + ":" + order.getDirection())
+                .toList();
+        return List.of(pageable.getNumber(), pageable.getSize(), orders);
+    }
+}
@@ -0,0 +1,28 @@
+package ee.smit.inventory.common;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import io.micronaut.data.model.Page;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import java.util.Collection;
+
+/**
+ * Weighs {@link QueryResultCache} entries by the number of rows they hold, so
+ * {@code maximum-weight} bounds the cache by cached rows rather than by result count.
+ */
+@Singleton
+@Named(QueryResultCache.CACHE_NAME)
+public class QueryResultWeigher implements Weigher<Object, Object> {
+
+    @Override
+    public int weigh(Object key, Object value) {
+        if (value instanceof Page<?> page) {
+            return Math.max(1, page.getContent().size());
+        }
+        if (value instanceof Collection<?> rows) {
+            return Math.max(1, rows.size());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,26 @@
+package ee.smit.inventory.common;
+
+import io.micrometer.context.ContextRegistry;
+import io.micronaut.context.annotation.Context;
+import reactor.core.publisher.Hooks;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Switches on Reactor's automatic context propagation for the OpenTelemetry context when the application starts,
+ * so spans carried in the Reactor context are current wherever a reactive signal changes threads, whether or not
+ * the R2DBC connection factory has been created yet. Both settings are JVM-wide, so they are applied once per JVM
+ * however many application contexts (tests, load tests) start in it.
+ */
+@Context
+public class ReactorContextPropagation {
+
+    private static final AtomicBoolean ENABLED = new AtomicBoolean();
+
+    public ReactorContextPropagation() {
+        if (ENABLED.compareAndSet(false, true)) {
+            ContextRegistry.getInstance().registerThreadLocalAccessor(new OpenTelemetryContextAccessor());
+            Hooks.enableAutomaticContextPropagation();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ee.smit.inventory.common;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.aop.InterceptedMethod;
+import io.micronaut.aop.InterceptorBean;
+import io.micronaut.aop.MethodInterceptor;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.convert.ConversionService;
+import io.micronaut.data.model.Slice;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records an {@value #METER_NAME} timer with a percentile histogram and an {@value #ROWS_METER_NAME} summary
+ * for every call to a {@link TimedRepository}, tagged with the repository and the method, and hands calls to
+ * the {@link SlowQueryLog}. Reactive methods are timed from subscription until the publisher terminates or is
+ * cancelled.
+ */
+@Singleton
+@InterceptorBean(TimedRepository.class)
+public class RepositoryTimingInterceptor implements MethodInterceptor<Object, Object> {
+
+    static final String METER_NAME = "inventory.repository";
+    static final String ROWS_METER_NAME = "inventory.repository.rows";
+
+    private final MeterRegistry meterRegistry;
+    private final ConversionService conversionService;
+    private final SlowQueryLog slowQueryLog;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryTimingInterceptor(MeterRegistry meterRegistry, ConversionService conversionService,
+                                       SlowQueryLog slowQueryLog) {
+        this.meterRegistry = meterRegistry;
+        this.conversionService = conversionService;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object intercept(MethodInvocationContext<Object, Object> context) {
+        String repository = repositoryName(context.getTarget().getClass());
+        InterceptedMethod interceptedMethod = InterceptedMethod.of(context, conversionService);
+        try {
+            if (interceptedMethod.resultType() == InterceptedMethod.ResultType.PUBLISHER) {
+                Publisher<?> results = interceptedMethod.interceptResultAsPublisher();
+                // Mono.from cancels its source after the first item, so a Mono is measured as a Mono
+                if (results instanceof Mono<?>) {
+                    Mono<Object> mono = Mono.from(results);
+                    return interceptedMethod.handleResult(Mono.defer(() -> {
+                        ReactiveCall call = new ReactiveCall(context, repository);
+                        return mono.doOnNext(call::onNext).doFinally(call::onFinally);
+                    }));
+                }
+                Flux<Object> flux = Flux.from(results);
+                return interceptedMethod.handleResult(Flux.defer(() -> {
+                    ReactiveCall call = new ReactiveCall(context, repository);
+                    return flux.doOnNext(call::onNext).doFinally(call::onFinally);
+                }));
+            }
+            long start = System.nanoTime();
+            Object result = null;
+            String outcome = "error";
+            try {
+                result = context.proceed();
+                outcome = "success";
+                return result;
+            } finally {
+                completed(context, repository, outcome, System.nanoTime() - start, rows(result), true);
+            }
+        } catch (Exception e) {
+            return interceptedMethod.handleException(e);
+        }
+    }
+
+    /**
+     * One subscription to a reactive repository result, counting one row per emitted item.
+     */
+    private final class ReactiveCall {
+
+        private final MethodInvocationContext<Object, Object> context;
+        private final String repository;
+        private final long start = System.nanoTime();
+        private final AtomicLong rows = new AtomicLong();
+
+        private ReactiveCall(MethodInvocationContext<Object, Object> context, String repository) {
+            this.context = context;
+            this.repository = repository;
+        }
+
+        void onNext(Object item) {
+            rows.incrementAndGet();
+        }
+
+        void onFinally(SignalType signal) {
+            String outcome = switch (signal) {
+                case ON_COMPLETE -> "success";
+                case ON_ERROR -> "error";
+                default -> "cancelled";
+            };
+            completed(context, repository, outcome, System.nanoTime() - start, rows.get(), false);
+        }
+    }
+
+    private void completed(MethodInvocationContext<Object, Object> context, String repository, String outcome,
+                           long nanos, long rows, boolean blocking) {
+        String method = context.getMethodName();
+        Timer.builder(METER_NAME)
+                .description("Repository method calls")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(ROWS_METER_NAME)
+                .description("Rows returned per repository method call")
+                .baseUnit("rows")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(rows);
+        if ("success".equals(outcome)) {
+            slowQueryLog.record(context, repository, nanos, rows, blocking);
+        }
+    }
+
+    /**
+     * Rows behind a blocking result: the elements of a collection or page, zero or one for an optional,
+     * one for any other value (an entity or a scalar), zero for {@code void}.
+     */
+    private static long rows(@Nullable Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Iterable<?> iterable) {
+            long count = 0;
+            for (Object ignored : iterable) {
+                count++;
+            }
+            return count;
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+
+    /**
+     * The target is the generated repository implementation; the tag is the interface it implements.
+     */
+    private String repositoryName(Class<?> implementation) {
+        return repositoryNames.computeIfAbsent(implementation, type -> Arrays.stream(type.getInterfaces())
+                .filter(candidate -> candidate.isAnnotationPresent(TimedRepository.class))
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse(type.getSimpleName()));
+    }
+}
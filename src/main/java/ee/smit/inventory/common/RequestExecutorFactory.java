@@ -0,0 +1,49 @@
+package ee.smit.inventory.common;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The executor controllers run on, selected by {@code inventory.execution.mode}.
+ * {@code blocking} (the default) keeps Micronaut's BLOCKING executor. {@code virtual} runs every request on its
+ * own virtual thread, with at most {@code inventory.execution.max-concurrency} requests (by default the
+ * Hikari pool size) executing at a time; its queue depth and active count are published as the
+ * {@code inventory.requests.queued} and {@code inventory.requests.active} gauges.
+ */
+@Factory
+public class RequestExecutorFactory {
+
+    public static final String NAME = "requests";
+
+    @Singleton
+    @Named(NAME)
+    @Requires(property = "inventory.execution.mode", notEquals = "virtual")
+    ExecutorService blockingRequestExecutor(@Named(TaskExecutors.BLOCKING) ExecutorService blocking) {
+        return blocking;
+    }
+
+    @Singleton
+    @Named(NAME)
+    @Requires(property = "inventory.execution.mode", value = "virtual")
+    @Bean(preDestroy = "shutdown")
+    ExecutorService virtualRequestExecutor(@Value("${inventory.execution.max-concurrency:10}") int maxConcurrency,
+                                           MeterRegistry meterRegistry) {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("request-", maxConcurrency);
+        Gauge.builder("inventory.requests.queued", executor, BoundedVirtualThreadExecutor::queuedTasks)
+                .description("Requests waiting for an execution permit")
+                .register(meterRegistry);
+        Gauge.builder("inventory.requests.active", executor, BoundedVirtualThreadExecutor::activeTasks)
+                .description("Requests holding an execution permit")
+                .register(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,108 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.aop.InterceptPhase;
+import io.micronaut.aop.InterceptedMethod;
+import io.micronaut.aop.InterceptorBean;
+import io.micronaut.aop.MethodInterceptor;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.core.convert.ConversionService;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Runs every call to a {@link TracedService} in an internal span named {@code Service.method}.
+ * It is ordered before {@code @Transactional}, so the connection checkout and the statements of the
+ * transaction are children of the service span. Reactive methods are spanned from subscription until the
+ * publisher terminates or is cancelled, under the span that was current when the method was called; the
+ * service span is stored in the Reactor context, so R2DBC statements issued by the publisher become its children.
+ */
+@Singleton
+@InterceptorBean(TracedService.class)
+public class ServiceTracingInterceptor implements MethodInterceptor<Object, Object> {
+
+    static final String INSTRUMENTATION_NAME = "ee.smit.inventory";
+
+    private static final AttributeKey<String> CODE_NAMESPACE = AttributeKey.stringKey("code.namespace");
+    private static final AttributeKey<String> CODE_FUNCTION = AttributeKey.stringKey("code.function");
+
+    private final Tracer tracer;
+    private final ConversionService conversionService;
+
+    public ServiceTracingInterceptor(OpenTelemetry openTelemetry, ConversionService conversionService) {
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+        this.conversionService = conversionService;
+    }
+
+    @Override
+    public int getOrder() {
+        return InterceptPhase.TRACE.getPosition();
+    }
+
+    @Override
+    public Object intercept(MethodInvocationContext<Object, Object> context) {
+        InterceptedMethod interceptedMethod = InterceptedMethod.of(context, conversionService);
+        try {
+            if (interceptedMethod.resultType() == InterceptedMethod.ResultType.PUBLISHER) {
+                Context parent = Context.current();
+                Publisher<?> results = interceptedMethod.interceptResultAsPublisher();
+                if (results instanceof Mono<?>) {
+                    Mono<Object> mono = Mono.from(results);
+                    return interceptedMethod.handleResult(Mono.defer(() -> {
+                        Span span = start(context, parent);
+                        return mono.doOnError(error -> failed(span, error)).doFinally(signal -> end(span, signal))
+                                .contextWrite(reactor -> reactor.put(OpenTelemetryContextAccessor.KEY,
+                                        parent.with(span)));
+                    }));
+                }
+                Flux<Object> flux = Flux.from(results);
+                return interceptedMethod.handleResult(Flux.defer(() -> {
+                    Span span = start(context, parent);
+                    return flux.doOnError(error -> failed(span, error)).doFinally(signal -> end(span, signal))
+                            .contextWrite(reactor -> reactor.put(OpenTelemetryContextAccessor.KEY, parent.with(span)));
+                }));
+            }
+            Span span = start(context, Context.current());
+            try (Scope ignored = span.makeCurrent()) {
+                return context.proceed();
+            } catch (RuntimeException e) {
+                failed(span, e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        } catch (Exception e) {
+            return interceptedMethod.handleException(e);
+        }
+    }
+
+    private Span start(MethodInvocationContext<Object, Object> context, Context parent) {
+        String service = context.getDeclaringType().getSimpleName();
+        return tracer.spanBuilder(service + "." + context.getMethodName())
+                .setParent(parent)
+                .setAttribute(CODE_NAMESPACE, context.getDeclaringType().getName())
+                .setAttribute(CODE_FUNCTION, context.getMethodName())
+                .startSpan();
+    }
+
+    private static void failed(Span span, Throwable error) {
+        span.recordException(error);
+        span.setStatus(StatusCode.ERROR);
+    }
+
+    private static void end(Span span, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            span.setAttribute("cancelled", true);
+        }
+        span.end();
+    }
+}
@@ -0,0 +1,123 @@
+package ee.smit.inventory.common;
+
+import ee.smit.inventory.exception.ValidationException;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Singleton;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Executes single-statement writes built by the services.
+ * Filter-based UPDATE and DELETE statements run in their own transaction and are rolled back when they touch
+ * more rows than {@code inventory.bulk.max-affected-rows}, so a too-broad filter never changes anything.
+ */
+@Singleton
+public class SetBasedWrites {
+
+    private final JdbcOperations jdbcOperations;
+    private final TransactionOperations<Connection> transactionOperations;
+    private final ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+    private final int maxAffectedRows;
+
+    public SetBasedWrites(JdbcOperations jdbcOperations,
+                          TransactionOperations<Connection> transactionOperations,
+                          ApplicationEventPublisher<TableChangedEvent> eventPublisher,
+                          @Value("${inventory.bulk.max-affected-rows:10000}") int maxAffectedRows) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.eventPublisher = eventPublisher;
+        this.maxAffectedRows = maxAffectedRows;
+    }
+
+    /**
+     * @param table the table {@code sql} writes to, announced in a {@link TableChangedEvent}
+     */
+    public BulkWriteResponse execute(String table, String sql, List<Object> parameters) {
+        int affected = transactionOperations.executeWrite(status -> {
+            int count = jdbcOperations.prepareStatement(sql, statement -> {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                return statement.executeUpdate();
+            });
+            if (count > maxAffectedRows) {
+                throw new ValidationException("filter",
+                        "Filter matches " + count + " rows, more than the limit of " + maxAffectedRows);
+            }
+            if (count > 0) {
+                eventPublisher.publishEvent(new TableChangedEvent(table));
+            }
+            return count;
+        });
+        return new BulkWriteResponse(affected);
+    }
+
+    /**
+     * Runs an {@code UPDATE ... WHERE id = ? RETURNING *} and maps the returned row, so a partial update
+     * needs one round trip instead of a SELECT followed by a full-row UPDATE.
+     *
+     * @return the updated row, or empty when no row has the given id
+     */
+    public <T> Optional<T> updateReturning(String table, Long id, String sql, List<Object> parameters,
+                                           Class<T> entityType) {
+        return transactionOperations.executeWrite(status -> {
+            Optional<T> updated = jdbcOperations.prepareStatement(sql, statement -> {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next()
+                            ? Optional.of(jdbcOperations.readEntity(resultSet, entityType))
+                            : Optional.<T>empty();
+                }
+            });
+            updated.ifPresent(entity -> eventPublisher.publishEvent(new TableChangedEvent(table, id)));
+            return updated;
+        });
+    }
+
+    /**
+     * Runs {@code DELETE ... WHERE id = ANY(?) RETURNING id}, so neither a prior existence check nor
+     * entity loading is needed. At most {@code inventory.bulk.max-affected-rows} ids are accepted.
+     * Deleting more than one row is announced as a single table-wide change.
+     *
+     * @return the ids that existed and were deleted
+     */
+    public List<Long> deleteByIds(String table, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            throw new ValidationException("ids", "At least one id is required");
+        }
+        if (ids.size() > maxAffectedRows) {
+            throw new ValidationException("ids", "At most " + maxAffectedRows + " ids can be deleted at once");
+        }
+        String sql = "DELETE FROM " + table + " WHERE id = ANY(?) RETURNING id";
+        return transactionOperations.executeWrite(status -> {
+            List<Long> deleted = jdbcOperations.prepareStatement(sql, statement -> {
+                statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids.toArray()));
+                List<Long> result = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        result.add(resultSet.getLong(1));
+                    }
+                }
+                return result;
+            });
+            // One event per id would mean one notification and one version bump per row; past a single
+            // id a table-wide event is cheaper than the targeted evictions it replaces
+            if (deleted.size() == 1) {
+                eventPublisher.publishEvent(new TableChangedEvent(table, deleted.get(0)));
+            } else if (!deleted.isEmpty()) {
+                eventPublisher.publishEvent(new TableChangedEvent(table));
+            }
+            return deleted;
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A repository call that took longer than {@code inventory.slow-queries.threshold}.
+ *
+ * @param parameters the bound arguments, rendered with {@code toString} and truncated
+ * @param sql        the statement Micronaut Data generated for the method, if it has one
+ * @param plan       the {@code EXPLAIN (ANALYZE, BUFFERS)} output, when plan capture is enabled and possible
+ */
+@Serdeable
+public record SlowQuery(Instant at, String repository, String method, double millis, long rows,
+                        List<String> parameters, @Nullable String sql, @Nullable String plan) {}
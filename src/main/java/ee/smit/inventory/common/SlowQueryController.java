@@ -0,0 +1,34 @@
+package ee.smit.inventory.common;
+
+import ee.smit.inventory.security.Roles;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.security.annotation.Secured;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.util.List;
+
+/**
+ * Serves the slow repository calls kept by {@link SlowQueryLog} to administrators.
+ */
+@Controller("/admin/slow-queries")
+@Secured({Roles.ROLE_ADMIN})
+@Tag(name = "Administration", description = "Diagnostics for operators")
+public class SlowQueryController {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryController(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Get
+    @Operation(summary = "List slow repository calls",
+            description = "Recent repository calls over inventory.slow-queries.threshold, slowest first")
+    @ApiResponse(responseCode = "200", description = "Slow calls retained on this instance")
+    public List<SlowQuery> slowest() {
+        return slowQueryLog.slowest();
+    }
+}
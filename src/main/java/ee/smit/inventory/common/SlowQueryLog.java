@@ -0,0 +1,155 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.intercept.annotation.DataMethod;
+import io.micronaut.data.intercept.annotation.DataMethodQueryParameter;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.Sort;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keeps the most recent repository calls slower than {@code inventory.slow-queries.threshold} and logs each one
+ * with its bound parameters.
+ * <p>
+ * With {@code inventory.slow-queries.explain} enabled, slow blocking SELECTs are run again under
+ * {@code EXPLAIN (ANALYZE, BUFFERS)} and the plan is kept with the entry. That executes the query a second
+ * time on the calling thread, so it is meant to be switched on while investigating, not left on.
+ * Plans are only captured when every placeholder binds a plain method argument; pageable finders,
+ * collection arguments and reactive calls are logged without one.
+ */
+@Singleton
+public class SlowQueryLog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    private final JdbcOperations jdbcOperations;
+    private final long thresholdNanos;
+    private final int capacity;
+    private final boolean explain;
+    private final Deque<SlowQuery> recent = new ArrayDeque<>();
+
+    public SlowQueryLog(JdbcOperations jdbcOperations,
+                        @Value("${inventory.slow-queries.threshold:200ms}") Duration threshold,
+                        @Value("${inventory.slow-queries.capacity:50}") int capacity,
+                        @Value("${inventory.slow-queries.explain:false}") boolean explain) {
+        this.jdbcOperations = jdbcOperations;
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+        this.explain = explain;
+    }
+
+    /**
+     * @param blocking whether the call ran on the current thread, which is required for plan capture
+     */
+    public void record(MethodInvocationContext<?, ?> context, String repository, long nanos, long rows,
+                       boolean blocking) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        String sql = sql(context);
+        List<String> parameters = Arrays.stream(context.getParameterValues()).map(SlowQueryLog::render).toList();
+        String plan = explain && blocking && sql != null ? explain(context, sql) : null;
+        SlowQuery query = new SlowQuery(Instant.now(), repository, context.getMethodName(), nanos / 1_000_000.0,
+                rows, parameters, sql, plan);
+        LOG.warn("Slow query {}.{} took {} ms and returned {} rows, parameters {}{}", repository,
+                query.method(), String.format(Locale.ROOT, "%.1f", query.millis()), rows, parameters,
+                plan != null ? "\n" + plan : "");
+        synchronized (recent) {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(query);
+        }
+    }
+
+    /**
+     * The retained slow queries, slowest first.
+     */
+    public List<SlowQuery> slowest() {
+        List<SlowQuery> snapshot;
+        synchronized (recent) {
+            snapshot = new ArrayList<>(recent);
+        }
+        snapshot.sort(Comparator.comparingDouble(SlowQuery::millis).reversed());
+        return snapshot;
+    }
+
+    @Nullable
+    private static String sql(MethodInvocationContext<?, ?> context) {
+        return context.stringValue(Query.class, DataMethod.META_MEMBER_RAW_QUERY)
+                .or(() -> context.stringValue(Query.class))
+                .orElse(null);
+    }
+
+    @Nullable
+    private String explain(MethodInvocationContext<?, ?> context, String sql) {
+        if (!sql.stripLeading().toUpperCase(Locale.ROOT).startsWith("SELECT")) {
+            return null;
+        }
+        Object[] arguments = context.getParameterValues();
+        // The statement in the metadata has no ORDER BY or LIMIT yet, so explaining it would scan the whole table
+        if (Arrays.stream(arguments).anyMatch(argument -> argument instanceof Pageable || argument instanceof Sort)) {
+            return null;
+        }
+        List<Object> values = new ArrayList<>();
+        List<AnnotationValue<DataMethodQueryParameter>> bindings = context.findAnnotation(DataMethod.class)
+                .map(dataMethod -> dataMethod.getAnnotations(DataMethod.META_MEMBER_PARAMETERS,
+                        DataMethodQueryParameter.class))
+                .orElse(List.of());
+        for (AnnotationValue<DataMethodQueryParameter> binding : bindings) {
+            int index = binding.intValue(DataMethodQueryParameter.META_MEMBER_PARAMETER_INDEX).orElse(-1);
+            if (index < 0 || index >= arguments.length || !isPlain(arguments[index])) {
+                return null;
+            }
+            Object argument = arguments[index];
+            values.add(argument instanceof Enum<?> constant ? constant.name() : argument);
+        }
+        try {
+            return jdbcOperations.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql, statement -> {
+                for (int i = 0; i < values.size(); i++) {
+                    statement.setObject(i + 1, values.get(i));
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString().stripTrailing();
+            });
+        } catch (RuntimeException e) {
+            LOG.debug("Could not capture a plan for {}", context.getMethodName(), e);
+            return null;
+        }
+    }
+
+    private static boolean isPlain(@Nullable Object argument) {
+        return argument instanceof String || argument instanceof Number || argument instanceof Boolean
+                || argument instanceof Enum<?> || argument instanceof Temporal;
+    }
+
+    private static String render(@Nullable Object argument) {
+        String value = String.valueOf(argument);
+        return value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value;
+    }
+}
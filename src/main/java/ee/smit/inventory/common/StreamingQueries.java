@@ -0,0 +1,103 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams query results through a server-side JDBC cursor.
+ * The query runs in a read-only transaction (autocommit off) with a bounded fetch size, so pgjdbc
+ * fetches rows in batches instead of materializing the whole result. Rows are only read when the
+ * subscriber signals demand, which keeps memory constant regardless of table size.
+ * The cursor is read on the request executor, so in {@code virtual} mode an open stream holds one of the
+ * {@code inventory.execution.max-concurrency} permits, like any other request holding a connection.
+ */
+@Singleton
+public class StreamingQueries {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final TransactionOperations<Connection> transactionOperations;
+    private final JdbcOperations jdbcOperations;
+    private final ExecutorService executorService;
+
+    public StreamingQueries(TransactionOperations<Connection> transactionOperations,
+                            JdbcOperations jdbcOperations,
+                            @Named(RequestExecutorFactory.NAME) ExecutorService executorService) {
+        this.transactionOperations = transactionOperations;
+        this.jdbcOperations = jdbcOperations;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Maps the current row of a result set. Implementations must not advance the cursor.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    public <E> Flux<E> stream(String sql, List<Object> parameters, Class<E> entityType) {
+        return stream(sql, parameters, resultSet -> jdbcOperations.readEntity(resultSet, entityType));
+    }
+
+    public <T> Flux<T> stream(String sql, List<Object> parameters, RowMapper<T> rowMapper) {
+        return Flux.create(sink -> {
+            Semaphore demand = new Semaphore(0);
+            AtomicBoolean unbounded = new AtomicBoolean();
+            sink.onRequest(n -> {
+                if (n >= Integer.MAX_VALUE) {
+                    unbounded.set(true);
+                    demand.release();
+                } else {
+                    demand.release((int) n);
+                }
+            });
+            sink.onCancel(demand::release);
+            executorService.execute(() -> run(sql, parameters, rowMapper, sink, demand, unbounded));
+        });
+    }
+
+    private <T> void run(String sql, List<Object> parameters, RowMapper<T> rowMapper,
+                         FluxSink<T> sink, Semaphore demand, AtomicBoolean unbounded) {
+        try {
+            transactionOperations.executeRead(status -> {
+                Connection connection = status.getConnection();
+                try (PreparedStatement statement = connection.prepareStatement(
+                        sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(FETCH_SIZE);
+                    for (int i = 0; i < parameters.size(); i++) {
+                        statement.setObject(i + 1, parameters.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (!sink.isCancelled() && resultSet.next()) {
+                            if (!unbounded.get()) {
+                                demand.acquire();
+                            }
+                            if (sink.isCancelled()) {
+                                break;
+                            }
+                            sink.next(rowMapper.map(resultSet));
+                        }
+                    }
+                }
+                return null;
+            });
+            sink.complete();
+        } catch (Exception e) {
+            sink.error(e);
+        }
+    }
+}
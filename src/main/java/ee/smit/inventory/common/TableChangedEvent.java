@@ -0,0 +1,23 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.core.annotation.Nullable;
+
+/**
+ * Published whenever rows of {@code table} are inserted, updated or deleted.
+ * Writers publish it inside their transaction; caches listen with
+ * {@code @TransactionalEventListener} so they only react once the change is committed.
+ *
+ * @param table  the changed table
+ * @param id     the primary key of the only changed row, or {@code null} when any number of rows may have changed
+ * @param remote {@code true} when the write happened on another node and arrived over the {@link CacheInvalidationBus}
+ */
+public record TableChangedEvent(String table, @Nullable Long id, boolean remote) {
+
+    public TableChangedEvent(String table, @Nullable Long id) {
+        this(table, id, false);
+    }
+
+    public TableChangedEvent(String table) {
+        this(table, null, false);
+    }
+}
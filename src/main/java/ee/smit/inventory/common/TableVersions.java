@@ -0,0 +1,32 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.transaction.annotation.TransactionalEventListener;
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-table version counters, bumped after every committed write.
+ * Anything derived from a table can be keyed or tagged with its version: once the version moves on,
+ * results computed under the old one are simply never looked up again.
+ */
+@Singleton
+public class TableVersions {
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long current(String table) {
+        return counter(table).get();
+    }
+
+    @TransactionalEventListener
+    public void onTableChanged(TableChangedEvent event) {
+        counter(event.table()).incrementAndGet();
+    }
+
+    private AtomicLong counter(String table) {
+        return versions.computeIfAbsent(table, name -> new AtomicLong());
+    }
+}
@@ -0,0 +1,36 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.instrumentation.r2dbc.v1_0.R2dbcTelemetry;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.inject.Singleton;
+
+/**
+ * Wraps the R2DBC connection factory so that every statement of the reactive reads becomes a client span
+ * with the SQL as {@code db.statement}, like {@link TracingDataSourceListener} does for JDBC.
+ * R2DBC statements run on whichever event loop thread completes the previous step, so the current span is
+ * carried in the Reactor context and made current by Reactor's automatic context propagation (switched on by
+ * {@link ReactorContextPropagation}). That restores it only where a signal can change threads, instead of around
+ * every operator of every pipeline.
+ */
+@Singleton
+public class TracingConnectionFactoryListener implements BeanCreatedEventListener<ConnectionFactory> {
+
+    private final R2dbcTelemetry r2dbcTelemetry;
+    private final ConnectionFactoryOptions options;
+
+    public TracingConnectionFactoryListener(OpenTelemetry openTelemetry,
+                                            @Value("${r2dbc.datasources.default.url}") String url) {
+        this.r2dbcTelemetry = R2dbcTelemetry.create(openTelemetry);
+        this.options = ConnectionFactoryOptions.parse(url);
+    }
+
+    @Override
+    public ConnectionFactory onCreated(BeanCreatedEvent<ConnectionFactory> event) {
+        return r2dbcTelemetry.wrapConnectionFactory(event.getBean(), options);
+    }
+}
@@ -0,0 +1,29 @@
+package ee.smit.inventory.common;
+
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.instrumentation.jdbc.datasource.JdbcTelemetry;
+import jakarta.inject.Singleton;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the JDBC datasource so that every connection checkout from the Hikari pool and every statement
+ * becomes a client span under the current span, with the SQL (literals masked) as {@code db.statement}.
+ * Unsampled requests get no-op spans, so the wrapper costs little beyond a context lookup.
+ */
+@Singleton
+public class TracingDataSourceListener implements BeanCreatedEventListener<DataSource> {
+
+    private final JdbcTelemetry jdbcTelemetry;
+
+    public TracingDataSourceListener(OpenTelemetry openTelemetry) {
+        this.jdbcTelemetry = JdbcTelemetry.create(openTelemetry);
+    }
+
+    @Override
+    public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+        return jdbcTelemetry.wrap(event.getBean());
+    }
+}
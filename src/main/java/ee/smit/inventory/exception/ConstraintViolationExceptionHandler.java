@@ -39,7 +39,7 @@ public class ConstraintViolationExceptionHandler implements
         ));
     }
 
-    private String extractFieldName(String propertyPath) {
+    static String extractFieldName(String propertyPath) {
         // Property path looks like "create.request.name" or "update.request.title"
         // We want just the field name
         if (propertyPath.contains(".")) {
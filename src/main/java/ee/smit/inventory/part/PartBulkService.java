@@ -0,0 +1,273 @@
+package ee.smit.inventory.part;
+
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.common.BulkWriteResponse;
+import ee.smit.inventory.common.SetBasedWrites;
+import ee.smit.inventory.common.TableChangedEvent;
+import ee.smit.inventory.exception.ValidationException;
+import ee.smit.inventory.part.dto.PartCreateRequest;
+import ee.smit.inventory.part.dto.PartUpdateRequest;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.json.JsonMapper;
+import io.micronaut.json.tree.JsonNode;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Singleton;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Service for bulk operations on {@link Part} entities.
+ * Imports are consumed incrementally from the request body and written with JDBC batch inserts,
+ * one transaction per batch, so a bad item or batch never aborts the rest of the load. A batch the
+ * database rejects is written again row by row behind savepoints, so only the offending items fail.
+ * Filter-based updates and deletes run as a single UPDATE or DELETE statement.
+ */
+@Singleton
+public class PartBulkService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartBulkService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO parts"
+            + " (name, description, type, location, quantity, condition, notes, created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcOperations jdbcOperations;
+    private final TransactionOperations<Connection> transactionOperations;
+    private final Validator validator;
+    private final SetBasedWrites setBasedWrites;
+    private final ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+    private final JsonMapper jsonMapper;
+    private final int batchSize;
+
+    public PartBulkService(JdbcOperations jdbcOperations,
+                           TransactionOperations<Connection> transactionOperations,
+                           Validator validator,
+                           SetBasedWrites setBasedWrites,
+                           ApplicationEventPublisher<TableChangedEvent> eventPublisher,
+                           JsonMapper jsonMapper,
+                           @Value("${inventory.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.validator = validator;
+        this.setBasedWrites = setBasedWrites;
+        this.eventPublisher = eventPublisher;
+        this.jsonMapper = jsonMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Validates and inserts parts as they arrive. Must run on a thread that may block.
+     * Each item is bound on its own, so one that does not map to a part (an unknown type, a wrong field type)
+     * is reported like a validation error. Input that is not JSON at all ends the stream; the items before it
+     * are still imported and the summary reports where reading stopped. A database failure that even the
+     * row-by-row retry cannot get past is not an item error; it propagates and ends the request with a 5xx.
+     */
+    public BulkImportResponse importParts(Publisher<JsonNode> items) {
+        int received = 0;
+        int inserted = 0;
+        int failed = 0;
+        List<BulkImportResponse.ItemError> errors = new ArrayList<>();
+        List<PartCreateRequest> batch = new ArrayList<>(batchSize);
+        List<Integer> batchIndexes = new ArrayList<>(batchSize);
+
+        try (Stream<JsonNode> stream = Flux.from(items).toStream(batchSize)) {
+            Iterator<JsonNode> iterator = stream.iterator();
+            while (true) {
+                JsonNode item;
+                try {
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    item = iterator.next();
+                } catch (RuntimeException e) {
+                    LOG.warn("Bulk import stopped after {} items: the body could not be parsed", received, e);
+                    failed++;
+                    addError(errors, received++, Map.of("item", "Could not be parsed, import stopped here: " + e.getMessage()));
+                    break;
+                }
+                int index = received++;
+                PartCreateRequest request;
+                try {
+                    request = jsonMapper.readValueFromTree(item, PartCreateRequest.class);
+                } catch (IOException | RuntimeException e) {
+                    failed++;
+                    addError(errors, index, Map.of("item", "Could not be read: " + e.getMessage()));
+                    continue;
+                }
+                Map<String, String> violations = validate(request);
+                if (!violations.isEmpty()) {
+                    failed++;
+                    addError(errors, index, violations);
+                    continue;
+                }
+                batch.add(request);
+                batchIndexes.add(index);
+                if (batch.size() == batchSize) {
+                    try {
+                        int written = insertBatch(batch, batchIndexes, errors);
+                        inserted += written;
+                        failed += batch.size() - written;
+                    } finally {
+                        batch.clear();
+                        batchIndexes.clear();
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            int written = insertBatch(batch, batchIndexes, errors);
+            inserted += written;
+            failed += batch.size() - written;
+        }
+        return new BulkImportResponse(received, inserted, failed, errors);
+    }
+
+    /**
+     * Applies the non-null fields of {@code changes} to every part matching the filters.
+     */
+    public BulkWriteResponse updateWhere(@Nullable PartType type, @Nullable PartCondition condition,
+                                         @Nullable String location, PartUpdateRequest changes) {
+        StringBuilder sql = new StringBuilder("UPDATE parts SET updated_at = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(LocalDateTime.now());
+        if (PartService.appendChanges(sql, parameters, changes) == 0) {
+            throw new ValidationException("body", "At least one field to update is required");
+        }
+        appendFilters(sql, parameters, type, condition, location);
+        return setBasedWrites.execute("parts", sql.toString(), parameters);
+    }
+
+    /**
+     * Deletes the parts with the given ids in one statement; unknown ids are skipped.
+     */
+    public BulkWriteResponse deleteByIds(List<Long> ids) {
+        return new BulkWriteResponse(setBasedWrites.deleteByIds("parts", ids).size());
+    }
+
+    public BulkWriteResponse deleteWhere(@Nullable PartType type, @Nullable PartCondition condition,
+                                         @Nullable String location) {
+        StringBuilder sql = new StringBuilder("DELETE FROM parts");
+        List<Object> parameters = new ArrayList<>();
+        appendFilters(sql, parameters, type, condition, location);
+        return setBasedWrites.execute("parts", sql.toString(), parameters);
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> parameters, @Nullable PartType type,
+                                      @Nullable PartCondition condition, @Nullable String location) {
+        if (type == null && condition == null && (location == null || location.isBlank())) {
+            throw new ValidationException("filter", "At least one filter (type, condition, location) is required");
+        }
+        sql.append(" WHERE TRUE");
+        if (type != null) {
+            sql.append(" AND type = ?");
+            parameters.add(type.name());
+        }
+        if (condition != null) {
+            sql.append(" AND condition = ?");
+            parameters.add(condition.name());
+        }
+        if (location != null && !location.isBlank()) {
+            sql.append(" AND location = ?");
+            parameters.add(location.trim());
+        }
+    }
+
+    private Map<String, String> validate(PartCreateRequest request) {
+        Set<ConstraintViolation<PartCreateRequest>> violations = validator.validate(request);
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<PartCreateRequest> violation : violations) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    private int insertBatch(List<PartCreateRequest> batch, List<Integer> batchIndexes,
+                            List<BulkImportResponse.ItemError> errors) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transactionOperations.executeWrite(status -> {
+                int[] counts = jdbcOperations.prepareStatement(INSERT_SQL, statement -> {
+                    for (PartCreateRequest request : batch) {
+                        bind(statement, PartService.newPart(request, now));
+                        statement.addBatch();
+                    }
+                    return statement.executeBatch();
+                });
+                eventPublisher.publishEvent(new TableChangedEvent("parts"));
+                return counts;
+            });
+            return batch.size();
+        } catch (RuntimeException e) {
+            LOG.warn("Bulk insert of {} parts failed, retrying them one by one: {}", batch.size(), e.getMessage());
+            return insertIndividually(batch, batchIndexes, errors, now);
+        }
+    }
+
+    /**
+     * Inserts each item behind its own savepoint in a single transaction, reporting the items that fail.
+     */
+    private int insertIndividually(List<PartCreateRequest> batch, List<Integer> batchIndexes,
+                                   List<BulkImportResponse.ItemError> errors, LocalDateTime now) {
+        return transactionOperations.executeWrite(status -> {
+            Connection connection = status.getConnection();
+            int written = 0;
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        bind(statement, PartService.newPart(batch.get(i), now));
+                        statement.executeUpdate();
+                        connection.releaseSavepoint(savepoint);
+                        written++;
+                    } catch (SQLException e) {
+                        connection.rollback(savepoint);
+                        addError(errors, batchIndexes.get(i), Map.of("item", "Could not be saved: " + e.getMessage()));
+                    }
+                }
+            }
+            if (written > 0) {
+                eventPublisher.publishEvent(new TableChangedEvent("parts"));
+            }
+            return written;
+        });
+    }
+
+    private static void bind(PreparedStatement statement, Part part) throws SQLException {
+        statement.setString(1, part.getName());
+        statement.setString(2, part.getDescription());
+        statement.setString(3, part.getType().name());
+        statement.setString(4, part.getLocation());
+        statement.setInt(5, part.getQuantity());
+        statement.setString(6, part.getCondition().name());
+        statement.setString(7, part.getNotes());
+        statement.setObject(8, part.getCreatedAt());
+        statement.setObject(9, part.getUpdatedAt());
+    }
+
+    private static void addError(List<BulkImportResponse.ItemError> errors, int index, Map<String, String> itemErrors) {
+        if (errors.size() < BulkImportResponse.MAX_REPORTED_ERRORS) {
+            errors.add(new BulkImportResponse.ItemError(index, itemErrors));
+        }
+    }
+}
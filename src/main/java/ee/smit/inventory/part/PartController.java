@@ -1,6 +1,13 @@
 package ee.smit.inventory.part;
 
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.common.BulkWriteResponse;
+import ee.smit.inventory.common.Cursor;
+import ee.smit.inventory.common.CursorPageResponse;
+import ee.smit.inventory.common.ETags;
+import ee.smit.inventory.common.FacetsResponse;
 import ee.smit.inventory.common.PageResponse;
+import ee.smit.inventory.common.RequestExecutorFactory;
 import ee.smit.inventory.exception.ErrorResponse;
 import ee.smit.inventory.exception.NotFoundException;
 import ee.smit.inventory.exception.ValidationException;
@@ -10,10 +17,13 @@ import ee.smit.inventory.part.dto.PartUpdateRequest;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.data.model.Pageable;
 import io.micronaut.data.model.Sort;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.*;
-import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.json.JsonMapper;
+import io.micronaut.json.tree.JsonNode;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.validation.Validated;
 import io.swagger.v3.oas.annotations.Operation;
@@ -26,6 +36,11 @@ import io.micronaut.security.annotation.Secured;
 
 import ee.smit.inventory.security.Roles;
 import jakarta.validation.Valid;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Set;
@@ -33,21 +48,34 @@ import java.util.Set;
 /**
  * REST controller for managing bicycle parts.
  * Provides CRUD operations for Mart's bicycle parts inventory.
+ * Lookups by id, pages, type and search are reactive and run on the event loop; every other route
+ * blocks on JDBC and runs on the request executor.
  */
 @Controller("/api/parts")
-@ExecuteOn(TaskExecutors.BLOCKING)
 @Validated
 @Secured({Roles.ROLE_PARTS})
 @Tag(name = "Bicycle Parts", description = "Manage Mart's bicycle parts inventory")
 public class PartController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final PartService partService;
+    private final PartBulkService partBulkService;
+    private final PartFacetService partFacetService;
+    private final JsonMapper jsonMapper;
+    private final ETags eTags;
 
-    public PartController(PartService partService) {
+    public PartController(PartService partService, PartBulkService partBulkService,
+                          PartFacetService partFacetService, JsonMapper jsonMapper, ETags eTags) {
         this.partService = partService;
+        this.partBulkService = partBulkService;
+        this.partFacetService = partFacetService;
+        this.jsonMapper = jsonMapper;
+        this.eTags = eTags;
     }
 
     @Post
+    @ExecuteOn(RequestExecutorFactory.NAME)
     @Operation(summary = "Create a new part", description = "Add a new bicycle part to the inventory")
     @ApiResponse(responseCode = "201", description = "Part created successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
@@ -58,14 +86,24 @@ public class PartController {
                 .headers(headers -> headers.location(URI.create("/api/parts/" + part.getId())));
     }
 
+    @Post(value = "/bulk", consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON_STREAM, APPLICATION_NDJSON})
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Import parts in bulk", description = "Import a JSON array or a stream of newline-delimited part objects (application/x-ndjson, as produced by /api/parts/export, or application/x-json-stream). Invalid items are reported without aborting the import; a body that stops being JSON ends the import and the summary says where")
+    @ApiResponse(responseCode = "200", description = "Import summary with per-item errors")
+    public BulkImportResponse bulkImport(@Body Publisher<JsonNode> items) {
+        return partBulkService.importParts(items);
+    }
+
     @Get("/{id}")
     @Operation(summary = "Get a part by ID", description = "Retrieve a specific bicycle part by its ID")
     @ApiResponse(responseCode = "200", description = "Part found")
+    @ApiResponse(responseCode = "304", description = "Part unchanged since the ETag given in If-None-Match")
     @ApiResponse(responseCode = "404", description = "Part not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
-    public PartResponse findById(@Parameter(description = "Part ID") @PathVariable Long id) {
+    public Mono<HttpResponse<PartResponse>> findById(HttpRequest<?> request, @Parameter(description = "Part ID") @PathVariable Long id) {
         return partService.findById(id)
-                .map(PartResponse::fromEntity)
-                .orElseThrow(() -> new NotFoundException("Part", id));
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Part", id)))
+                .map(part -> ETags.conditional(request, ETags.forEntity(part.getId(), part.getUpdatedAt()),
+                        () -> PartResponse.fromEntity(part)));
     }
 
     private static final Set<String> SORTABLE_FIELDS = Set.of("name", "type", "location", "quantity", "condition");
@@ -73,12 +111,15 @@ public class PartController {
     @Get
     @Operation(summary = "Get all parts", description = "Retrieve all bicycle parts in the inventory with pagination")
     @ApiResponse(responseCode = "200", description = "Paginated list of parts")
+    @ApiResponse(responseCode = "304", description = "Parts unchanged since the ETag given in If-None-Match")
     @ApiResponse(responseCode = "400", description = "Invalid sort field", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
-    public PageResponse<PartResponse> findAll(
+    public Mono<HttpResponse<PageResponse<PartResponse>>> findAll(
+            HttpRequest<?> request,
             @Parameter(description = "Page number (0-based)") @QueryValue(defaultValue = "0") int page,
             @Parameter(description = "Page size") @QueryValue(defaultValue = "20") int size,
             @Parameter(description = "Sort field") @Nullable @QueryValue String sort,
-            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction) {
+            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction,
+            @Parameter(description = "Total count mode (exact or estimate)") @QueryValue(defaultValue = "exact") String count) {
         if (page < 0) {
             throw new ValidationException("page", "Page number must be non-negative");
         }
@@ -88,6 +129,9 @@ public class PartController {
         if (sort != null && !SORTABLE_FIELDS.contains(sort)) {
             throw new ValidationException("sort", "Invalid sort field: " + sort);
         }
+        if (!"exact".equalsIgnoreCase(count) && !"estimate".equalsIgnoreCase(count)) {
+            throw new ValidationException("count", "Invalid count mode: " + count);
+        }
         Pageable pageable;
         if (sort != null) {
             Sort.Order order = "DESC".equalsIgnoreCase(direction)
@@ -97,33 +141,147 @@ public class PartController {
         } else {
             pageable = Pageable.from(page, size, Sort.of(Sort.Order.asc("id")));
         }
-        return PageResponse.from(partService.findAll(pageable), PartResponse::fromEntity);
+        return eTags.forCollectionAsync("parts", request).flatMap(etag -> ETags.conditional(request, etag,
+                partService.findAll(pageable, "estimate".equalsIgnoreCase(count))
+                        .map(parts -> PageResponse.from(parts, PartResponse::fromEntity))));
+    }
+
+    @Get("/query")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Query parts", description = "Retrieve bicycle parts matching any combination of filters with pagination. All filters are combined with AND in a single query")
+    @ApiResponse(responseCode = "200", description = "Paginated list of matching parts")
+    @ApiResponse(responseCode = "304", description = "Parts unchanged since the ETag given in If-None-Match")
+    @ApiResponse(responseCode = "400", description = "Invalid filter, sort field or page", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public HttpResponse<PageResponse<PartResponse>> query(
+            HttpRequest<?> request,
+            @Parameter(description = "Part type filter") @Nullable @QueryValue PartType type,
+            @Parameter(description = "Part condition filter") @Nullable @QueryValue PartCondition condition,
+            @Parameter(description = "Location prefix filter") @Nullable @QueryValue String location,
+            @Parameter(description = "Minimum quantity") @Nullable @QueryValue Integer quantityMin,
+            @Parameter(description = "Maximum quantity") @Nullable @QueryValue Integer quantityMax,
+            @Parameter(description = "Text to find in name or description") @Nullable @QueryValue String q,
+            @Parameter(description = "Page number (0-based)") @QueryValue(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @QueryValue(defaultValue = "20") int size,
+            @Parameter(description = "Sort field") @Nullable @QueryValue String sort,
+            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction) {
+        if (page < 0) {
+            throw new ValidationException("page", "Page number must be non-negative");
+        }
+        if (size < 1 || size > 100) {
+            throw new ValidationException("size", "Page size must be between 1 and 100");
+        }
+        if (sort != null && !SORTABLE_FIELDS.contains(sort)) {
+            throw new ValidationException("sort", "Invalid sort field: " + sort);
+        }
+        if (quantityMin != null && quantityMax != null && quantityMin > quantityMax) {
+            throw new ValidationException("quantityMin", "Minimum quantity must not exceed maximum quantity");
+        }
+        Sort.Order order = sort == null
+                ? Sort.Order.asc("id")
+                : "DESC".equalsIgnoreCase(direction) ? Sort.Order.desc(sort) : Sort.Order.asc(sort);
+        Pageable pageable = Pageable.from(page, size, Sort.of(order));
+        return ETags.conditional(request, eTags.forCollection("parts", request), () -> PageResponse.from(
+                partService.query(type, condition, location, quantityMin, quantityMax, q, pageable),
+                PartResponse::fromEntity));
+    }
+
+    @Get("/facets")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Get part facets", description = "Count parts per type and per condition in one query, optionally narrowed by the same filters as /query")
+    @ApiResponse(responseCode = "200", description = "Total and per-facet counts")
+    @ApiResponse(responseCode = "400", description = "Invalid filter", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public FacetsResponse facets(
+            @Parameter(description = "Part type filter") @Nullable @QueryValue PartType type,
+            @Parameter(description = "Part condition filter") @Nullable @QueryValue PartCondition condition,
+            @Parameter(description = "Location prefix filter") @Nullable @QueryValue String location,
+            @Parameter(description = "Minimum quantity") @Nullable @QueryValue Integer quantityMin,
+            @Parameter(description = "Maximum quantity") @Nullable @QueryValue Integer quantityMax,
+            @Parameter(description = "Text to find in name or description") @Nullable @QueryValue String q) {
+        if (quantityMin != null && quantityMax != null && quantityMin > quantityMax) {
+            throw new ValidationException("quantityMin", "Minimum quantity must not exceed maximum quantity");
+        }
+        return partFacetService.facets(type, condition, location, quantityMin, quantityMax, q);
+    }
+
+    @Get("/cursor")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Get all parts by cursor", description = "Retrieve bicycle parts with keyset pagination. Pass nextCursor from the previous page as 'after'; no total count is computed")
+    @ApiResponse(responseCode = "200", description = "Cursor-paginated list of parts")
+    @ApiResponse(responseCode = "304", description = "Parts unchanged since the ETag given in If-None-Match")
+    @ApiResponse(responseCode = "400", description = "Invalid sort field or cursor", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public HttpResponse<CursorPageResponse<PartResponse>> findAllByCursor(
+            HttpRequest<?> request,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @Nullable @QueryValue String after,
+            @Parameter(description = "Page size") @QueryValue(defaultValue = "20") int size,
+            @Parameter(description = "Sort field") @Nullable @QueryValue String sort,
+            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction) {
+        if (size < 1 || size > 100) {
+            throw new ValidationException("size", "Page size must be between 1 and 100");
+        }
+        if (sort != null && !SORTABLE_FIELDS.contains(sort)) {
+            throw new ValidationException("sort", "Invalid sort field: " + sort);
+        }
+        Cursor cursor = after != null && !after.isBlank() ? Cursor.decode(after) : null;
+        boolean descending = sort != null && "DESC".equalsIgnoreCase(direction);
+        return ETags.conditional(request, eTags.forCollection("parts", request), () -> CursorPageResponse.from(
+                partService.findPage(sort != null ? sort : "id", descending, cursor, size),
+                PartResponse::fromEntity));
+    }
+
+    @Get(value = "/export", produces = APPLICATION_NDJSON)
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Export parts", description = "Stream all bicycle parts as newline-delimited JSON, optionally filtered by type and condition")
+    @ApiResponse(responseCode = "200", description = "One part per line")
+    public Publisher<byte[]> export(
+            @Parameter(description = "Part type filter") @Nullable @QueryValue PartType type,
+            @Parameter(description = "Part condition filter") @Nullable @QueryValue PartCondition condition) {
+        return partService.export(type, condition)
+                .map(part -> toNdjsonLine(PartResponse.fromEntity(part)));
+    }
+
+    private byte[] toNdjsonLine(PartResponse response) {
+        try {
+            byte[] json = jsonMapper.writeValueAsBytes(response);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Get("/type/{type}")
     @Operation(summary = "Get parts by type", description = "Filter bicycle parts by their type")
     @ApiResponse(responseCode = "200", description = "List of parts matching the type")
-    public List<PartResponse> findByType(
+    @ApiResponse(responseCode = "304", description = "Parts unchanged since the ETag given in If-None-Match")
+    public Mono<HttpResponse<List<PartResponse>>> findByType(
+            HttpRequest<?> request,
             @Parameter(description = "Part type (FRAME, BRAKE, TIRE, PUMP, OTHER)") @PathVariable PartType type) {
-        return partService.findByType(type).stream()
-                .map(PartResponse::fromEntity)
-                .toList();
+        return eTags.forCollectionAsync("parts", request).flatMap(etag -> ETags.conditional(request, etag,
+                partService.findByType(type).map(parts -> parts.stream()
+                        .map(PartResponse::fromEntity)
+                        .toList())));
     }
 
     @Get("/search")
     @Operation(summary = "Search parts", description = "Search bicycle parts by name or description")
     @ApiResponse(responseCode = "200", description = "List of matching parts")
-    public List<PartResponse> search(
+    @ApiResponse(responseCode = "304", description = "Parts unchanged since the ETag given in If-None-Match")
+    public Mono<HttpResponse<List<PartResponse>>> search(
+            HttpRequest<?> request,
             @Parameter(description = "Search query") @QueryValue String q) {
         if (q == null || q.isBlank()) {
             throw new ValidationException("q", "Search query must not be blank");
         }
-        return partService.search(q).stream()
-                .map(PartResponse::fromEntity)
-                .toList();
+        return eTags.forCollectionAsync("parts", request).flatMap(etag -> ETags.conditional(request, etag,
+                partService.search(q).map(parts -> parts.stream()
+                        .map(PartResponse::fromEntity)
+                        .toList())));
     }
 
     @Put("/{id}")
+    @ExecuteOn(RequestExecutorFactory.NAME)
     @Operation(summary = "Update a part", description = "Update an existing bicycle part")
     @ApiResponse(responseCode = "200", description = "Part updated successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
@@ -136,6 +294,7 @@ public class PartController {
     }
 
     @Delete("/{id}")
+    @ExecuteOn(RequestExecutorFactory.NAME)
     @Status(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete a part", description = "Remove a bicycle part from the inventory")
     @ApiResponse(responseCode = "204", description = "Part deleted successfully")
@@ -143,4 +302,39 @@ public class PartController {
     public void delete(@Parameter(description = "Part ID") @PathVariable Long id) {
         partService.delete(id);
     }
+
+    @Patch
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Update parts by filter", description = "Apply the given fields to every part matching the filters in a single statement. At least one filter is required")
+    @ApiResponse(responseCode = "200", description = "Number of updated parts")
+    @ApiResponse(responseCode = "400", description = "Invalid input, missing filter or too many matching parts", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public BulkWriteResponse updateWhere(
+            @Parameter(description = "Part type filter") @Nullable @QueryValue PartType type,
+            @Parameter(description = "Part condition filter") @Nullable @QueryValue PartCondition condition,
+            @Parameter(description = "Exact location filter") @Nullable @QueryValue String location,
+            @Body @Valid PartUpdateRequest request) {
+        return partBulkService.updateWhere(type, condition, location, request);
+    }
+
+    @Delete("/batch")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Delete parts by id", description = "Remove every part with one of the given ids in a single statement. Unknown ids are skipped")
+    @ApiResponse(responseCode = "200", description = "Number of deleted parts")
+    @ApiResponse(responseCode = "400", description = "No ids or too many ids", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public BulkWriteResponse deleteByIds(
+            @Parameter(description = "Part IDs, repeated or comma-separated") @QueryValue List<Long> ids) {
+        return partBulkService.deleteByIds(ids);
+    }
+
+    @Delete
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Delete parts by filter", description = "Remove every part matching the filters in a single statement. At least one filter is required")
+    @ApiResponse(responseCode = "200", description = "Number of deleted parts")
+    @ApiResponse(responseCode = "400", description = "Missing filter or too many matching parts", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public BulkWriteResponse deleteWhere(
+            @Parameter(description = "Part type filter") @Nullable @QueryValue PartType type,
+            @Parameter(description = "Part condition filter") @Nullable @QueryValue PartCondition condition,
+            @Parameter(description = "Exact location filter") @Nullable @QueryValue String location) {
+        return partBulkService.deleteWhere(type, condition, location);
+    }
 }
@@ -0,0 +1,105 @@
+package ee.smit.inventory.part;
+
+import ee.smit.inventory.common.FacetsResponse;
+import ee.smit.inventory.common.QueryResultCache;
+import ee.smit.inventory.common.QueryUtils;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import jakarta.inject.Singleton;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes part counts per type and per condition.
+ * All facets come from one {@code GROUP BY GROUPING SETS} scan. Results are cached per filter in the
+ * {@link QueryResultCache}, keyed by the version of {@code parts} read before the scan.
+ */
+@Singleton
+public class PartFacetService {
+
+    private final JdbcOperations jdbcOperations;
+    private final QueryResultCache queryResultCache;
+
+    public PartFacetService(JdbcOperations jdbcOperations, QueryResultCache queryResultCache) {
+        this.jdbcOperations = jdbcOperations;
+        this.queryResultCache = queryResultCache;
+    }
+
+    /**
+     * Accepts the same filters as {@link PartService#query}; {@code null} filters are ignored.
+     */
+    public FacetsResponse facets(@Nullable PartType type, @Nullable PartCondition condition,
+                                 @Nullable String locationPrefix, @Nullable Integer quantityMin,
+                                 @Nullable Integer quantityMax, @Nullable String text) {
+        List<Object> filters = Arrays.asList(type, condition, locationPrefix, quantityMin, quantityMax, text);
+        return queryResultCache.get("parts", "facets", filters, Argument.of(FacetsResponse.class),
+                () -> load(type, condition, locationPrefix, quantityMin, quantityMax, text));
+    }
+
+    private FacetsResponse load(@Nullable PartType type, @Nullable PartCondition condition,
+                                @Nullable String locationPrefix, @Nullable Integer quantityMin,
+                                @Nullable Integer quantityMax, @Nullable String text) {
+        StringBuilder sql = new StringBuilder("SELECT type, condition, GROUPING(type) AS all_types,"
+                + " GROUPING(condition) AS all_conditions, COUNT(*) AS row_count FROM parts WHERE TRUE");
+        List<Object> parameters = new ArrayList<>();
+        if (type != null) {
+            sql.append(" AND type = ?");
+            parameters.add(type.name());
+        }
+        if (condition != null) {
+            sql.append(" AND condition = ?");
+            parameters.add(condition.name());
+        }
+        if (locationPrefix != null && !locationPrefix.isBlank()) {
+            sql.append(" AND location LIKE ?");
+            parameters.add(QueryUtils.escapeLikePattern(locationPrefix.trim()) + "%");
+        }
+        if (quantityMin != null) {
+            sql.append(" AND quantity >= ?");
+            parameters.add(quantityMin);
+        }
+        if (quantityMax != null) {
+            sql.append(" AND quantity <= ?");
+            parameters.add(quantityMax);
+        }
+        if (text != null && !text.isBlank()) {
+            sql.append(" AND (LOWER(name) LIKE ? OR LOWER(description) LIKE ?)");
+            String pattern = "%" + QueryUtils.escapeLikePattern(text.trim().toLowerCase()) + "%";
+            parameters.add(pattern);
+            parameters.add(pattern);
+        }
+        sql.append(" GROUP BY GROUPING SETS ((type), (condition), ())");
+
+        Map<String, Long> types = FacetsResponse.zeroCounts(PartType.values());
+        Map<String, Long> conditions = FacetsResponse.zeroCounts(PartCondition.values());
+        long total = jdbcOperations.prepareStatement(sql.toString(), statement -> {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            long count = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long rows = resultSet.getLong("row_count");
+                    if (resultSet.getInt("all_types") == 0) {
+                        types.put(resultSet.getString("type"), rows);
+                    } else if (resultSet.getInt("all_conditions") == 0) {
+                        conditions.put(resultSet.getString("condition"), rows);
+                    } else {
+                        count = rows;
+                    }
+                }
+            }
+            return count;
+        });
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        facets.put("type", types);
+        facets.put("condition", conditions);
+        return new FacetsResponse(total, facets);
+    }
+}
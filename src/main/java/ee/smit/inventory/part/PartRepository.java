@@ -1,29 +1,65 @@
 package ee.smit.inventory.part;
 
+import ee.smit.inventory.common.TimedRepository;
 import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.Page;
 import io.micronaut.data.model.Pageable;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import io.micronaut.data.repository.jpa.JpaSpecificationExecutor;
 
 import java.util.List;
 
 /**
  * Repository interface for {@link Part} entity.
- * Provides CRUD operations and custom query methods.
+ * Provides CRUD operations, custom query methods and criteria queries via {@link PartSpecifications}.
+ * Shared queries are constants so that {@link ReactivePartRepository} runs the same SQL.
  */
 @JdbcRepository(dialect = Dialect.POSTGRES)
-public interface PartRepository extends CrudRepository<Part, Long> {
+@TimedRepository
+public interface PartRepository extends CrudRepository<Part, Long>, JpaSpecificationExecutor<Part> {
+
+    /**
+     * Substring search over name and description. The {@code LOWER(column)} expressions match the
+     * trigram GIN indexes from V5, so the planner can answer the leading-wildcard LIKE with a bitmap
+     * index scan. The query must already be escaped with {@code QueryUtils.escapeLikePattern}.
+     */
+    String SEARCH_BY_NAME_OR_DESCRIPTION = "SELECT * FROM parts"
+            + " WHERE LOWER(name) LIKE '%' || LOWER(:query) || '%' ESCAPE '\\'"
+            + " OR LOWER(description) LIKE '%' || LOWER(:query) || '%' ESCAPE '\\'";
+
+    String COUNT = "SELECT COALESCE((SELECT row_count FROM table_counters WHERE table_name = 'parts' AND group_key = '*'), 0)";
+
+    String ESTIMATE_COUNT = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass('parts')";
 
     Page<Part> findAll(Pageable pageable);
 
+    /**
+     * Page content without the count query that {@link #findAll(Pageable)} issues.
+     */
+    List<Part> list(Pageable pageable);
+
     List<Part> findByType(PartType type);
 
     List<Part> findByCondition(PartCondition condition);
 
-    @Query("SELECT * FROM parts WHERE LOWER(name) LIKE LOWER('%' || :query || '%') ESCAPE '\\' OR LOWER(description) LIKE LOWER('%' || :query || '%') ESCAPE '\\'")
+    @Query(SEARCH_BY_NAME_OR_DESCRIPTION)
     List<Part> searchByNameOrDescription(String query);
 
+    /**
+     * Exact row count, read from the trigger-maintained {@code table_counters} row.
+     */
+    @Override
+    @Query(COUNT)
+    long count();
+
+    @Query("SELECT COALESCE((SELECT row_count FROM table_counters WHERE table_name = 'parts' AND group_key = :type), 0)")
     long countByType(PartType type);
+
+    /**
+     * Planner estimate from {@code pg_class.reltuples}; negative if the table has never been analyzed.
+     */
+    @Query(ESTIMATE_COUNT)
+    long estimateCount();
 }
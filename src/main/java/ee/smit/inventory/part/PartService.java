@@ -1,33 +1,96 @@
 package ee.smit.inventory.part;
 
+import ee.smit.inventory.common.Cursor;
+import ee.smit.inventory.common.KeysetPage;
+import ee.smit.inventory.common.KeysetQueries;
+import ee.smit.inventory.common.QueryResultCache;
 import ee.smit.inventory.common.QueryUtils;
+import ee.smit.inventory.common.SetBasedWrites;
+import ee.smit.inventory.common.StreamingQueries;
+import ee.smit.inventory.common.TableChangedEvent;
+import ee.smit.inventory.common.TracedService;
 import ee.smit.inventory.exception.NotFoundException;
 import ee.smit.inventory.part.dto.PartCreateRequest;
 import ee.smit.inventory.part.dto.PartUpdateRequest;
+import io.micronaut.cache.SyncCache;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import io.micronaut.core.type.GenericArgument;
 import io.micronaut.data.model.Page;
 import io.micronaut.data.model.Pageable;
+import io.micronaut.data.repository.jpa.criteria.PredicateSpecification;
+import io.micronaut.transaction.annotation.TransactionalEventListener;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import jakarta.transaction.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service class for {@link Part} entity.
- * Handles business logic and validation for bicycle parts.
+ * Handles business logic and validation for bicycle parts. Lookups by id, pages, type and search
+ * read through {@link ReactivePartRepository} and never block the calling thread.
  */
 @Singleton
+@TracedService
 public class PartService {
 
+    static final String CACHE_NAME = "parts";
+
+    private static final Map<String, KeysetQueries.Column<Part>> KEYSET_COLUMNS = Map.of(
+            "id", new KeysetQueries.Column<>("id", true, Part::getId),
+            "name", new KeysetQueries.Column<>("name", false, Part::getName),
+            "type", new KeysetQueries.Column<>("type", false, Part::getType),
+            "location", new KeysetQueries.Column<>("location", false, Part::getLocation),
+            "quantity", new KeysetQueries.Column<>("quantity", true, Part::getQuantity),
+            "condition", new KeysetQueries.Column<>("condition", false, Part::getCondition)
+    );
+
+    private static final Argument<Page<Part>> PAGE_TYPE = new GenericArgument<Page<Part>>() {};
+
     private final PartRepository partRepository;
+    private final ReactivePartRepository reactivePartRepository;
+    private final KeysetQueries keysetQueries;
+    private final StreamingQueries streamingQueries;
+    private final ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+    private final SyncCache<?> cache;
+    private final QueryResultCache queryResultCache;
+    private final SetBasedWrites setBasedWrites;
+    // Bumped by onTableChanged before it evicts, so a load can tell whether an eviction ran while it was reading
+    private final AtomicLong evictions = new AtomicLong();
 
-    public PartService(PartRepository partRepository) {
+    public PartService(PartRepository partRepository, ReactivePartRepository reactivePartRepository,
+                       KeysetQueries keysetQueries,
+                       StreamingQueries streamingQueries,
+                       ApplicationEventPublisher<TableChangedEvent> eventPublisher,
+                       @Named(CACHE_NAME) SyncCache<?> cache,
+                       QueryResultCache queryResultCache,
+                       SetBasedWrites setBasedWrites) {
         this.partRepository = partRepository;
+        this.reactivePartRepository = reactivePartRepository;
+        this.keysetQueries = keysetQueries;
+        this.streamingQueries = streamingQueries;
+        this.eventPublisher = eventPublisher;
+        this.cache = cache;
+        this.queryResultCache = queryResultCache;
+        this.setBasedWrites = setBasedWrites;
     }
 
     @Transactional
     public Part create(PartCreateRequest request) {
+        Part part = partRepository.save(newPart(request, LocalDateTime.now()));
+        eventPublisher.publishEvent(new TableChangedEvent("parts", part.getId()));
+        return part;
+    }
+
+    static Part newPart(PartCreateRequest request, LocalDateTime now) {
         Part part = new Part();
         part.setName(request.name().trim());
         part.setDescription(request.description() != null && !request.description().trim().isEmpty()
@@ -38,64 +101,190 @@ public class PartService {
         part.setCondition(request.condition());
         part.setNotes(request.notes() != null && !request.notes().trim().isEmpty()
                 ? request.notes().trim() : null);
-        part.setCreatedAt(LocalDateTime.now());
-        part.setUpdatedAt(LocalDateTime.now());
+        part.setCreatedAt(now);
+        part.setUpdatedAt(now);
+        return part;
+    }
 
-        return partRepository.save(part);
+    /**
+     * Read-through lookup: hits are served from the {@value #CACHE_NAME} cache, misses load from the
+     * database and populate it. Absent ids are not cached, so a later insert is visible immediately.
+     * A loaded row is only cached if no eviction for {@code parts} ran while it was being read; otherwise
+     * the eviction could run before the put and leave the old row cached. Evictions include those announced
+     * by other nodes, so this also covers writes committed elsewhere.
+     */
+    public Mono<Part> findById(Long id) {
+        return Mono.defer(() -> cache.get(id, Part.class)
+                .map(Mono::just)
+                .orElseGet(() -> {
+                    long evictionsBefore = evictions.get();
+                    return reactivePartRepository.findById(id)
+                            .doOnNext(entity -> cacheIfUnchanged(id, entity, evictionsBefore));
+                }));
     }
 
-    public Optional<Part> findById(Long id) {
-        return partRepository.findById(id);
+    private void cacheIfUnchanged(Long id, Part entity, long evictionsBefore) {
+        if (evictions.get() != evictionsBefore) {
+            return;
+        }
+        cache.put(id, entity);
+        // An eviction may have run between the check and the put; it bumped the counter first,
+        // so drop the entry again if the counter has moved
+        if (evictions.get() != evictionsBefore) {
+            cache.invalidate(id);
+        }
     }
 
-    public Page<Part> findAll(Pageable pageable) {
-        return partRepository.findAll(pageable);
+    /**
+     * Drops cached entries once a write to {@code parts} has committed.
+     */
+    @TransactionalEventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (!"parts".equals(event.table())) {
+            return;
+        }
+        evictions.incrementAndGet();
+        if (event.id() != null) {
+            cache.invalidate(event.id());
+        } else {
+            cache.invalidateAll();
+        }
     }
 
-    public List<Part> findByType(PartType type) {
-        return partRepository.findByType(type);
+    public Mono<Page<Part>> findAll(Pageable pageable, boolean estimateCount) {
+        return queryResultCache.getAsync("parts", "findAll",
+                List.of(QueryResultCache.pageableKey(pageable), estimateCount), PAGE_TYPE, () -> {
+                    Mono<Long> total = (estimateCount ? reactivePartRepository.estimateCount() : Mono.just(-1L))
+                            .flatMap(estimate -> estimate >= 0 ? Mono.just(estimate) : reactivePartRepository.count());
+                    return reactivePartRepository.list(pageable).collectList()
+                            .zipWith(total, (content, count) -> Page.of(content, pageable, count));
+                });
     }
 
-    public List<Part> search(String query) {
-        return partRepository.searchByNameOrDescription(QueryUtils.escapeLikePattern(query));
+    public KeysetPage<Part> findPage(String sort, boolean descending, @Nullable Cursor after, int size) {
+        return keysetQueries.findPage("parts", Part.class, Part::getId,
+                sort, KEYSET_COLUMNS.get(sort), descending, after, size);
     }
 
-    @Transactional
+    /**
+     * Pages through parts matching every given filter; {@code null} filters are ignored.
+     */
+    public Page<Part> query(@Nullable PartType type, @Nullable PartCondition condition,
+                            @Nullable String locationPrefix, @Nullable Integer quantityMin,
+                            @Nullable Integer quantityMax, @Nullable String text, Pageable pageable) {
+        PredicateSpecification<Part> specification = PredicateSpecification.where(null);
+        if (type != null) {
+            specification = specification.and(PartSpecifications.hasType(type));
+        }
+        if (condition != null) {
+            specification = specification.and(PartSpecifications.hasCondition(condition));
+        }
+        if (locationPrefix != null && !locationPrefix.isBlank()) {
+            specification = specification.and(PartSpecifications.locationStartsWith(locationPrefix.trim()));
+        }
+        if (quantityMin != null) {
+            specification = specification.and(PartSpecifications.quantityAtLeast(quantityMin));
+        }
+        if (quantityMax != null) {
+            specification = specification.and(PartSpecifications.quantityAtMost(quantityMax));
+        }
+        if (text != null && !text.isBlank()) {
+            specification = specification.and(PartSpecifications.nameOrDescriptionContains(text.trim()));
+        }
+        return partRepository.findAll(specification, pageable);
+    }
+
+    /**
+     * Streams every part matching the optional filters in id order, reading through a JDBC cursor.
+     */
+    public Flux<Part> export(@Nullable PartType type, @Nullable PartCondition condition) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM parts WHERE TRUE");
+        List<Object> parameters = new ArrayList<>();
+        if (type != null) {
+            sql.append(" AND type = ?");
+            parameters.add(type.name());
+        }
+        if (condition != null) {
+            sql.append(" AND condition = ?");
+            parameters.add(condition.name());
+        }
+        sql.append(" ORDER BY id");
+        return streamingQueries.stream(sql.toString(), parameters, Part.class);
+    }
+
+    public Mono<List<Part>> findByType(PartType type) {
+        return queryResultCache.getAsync("parts", "findByType", List.of(type), Argument.listOf(Part.class),
+                () -> reactivePartRepository.findByType(type).collectList().map(List::copyOf));
+    }
+
+    /**
+     * Case-insensitive, so differently cased queries share one cache entry.
+     */
+    public Mono<List<Part>> search(String query) {
+        return queryResultCache.getAsync("parts", "search", List.of(query.toLowerCase()), Argument.listOf(Part.class),
+                () -> reactivePartRepository.searchByNameOrDescription(QueryUtils.escapeLikePattern(query))
+                        .collectList().map(List::copyOf));
+    }
+
+    /**
+     * Writes only the provided fields in a single {@code UPDATE ... RETURNING} round trip.
+     */
     public Part update(Long id, PartUpdateRequest request) {
-        Part part = partRepository.findById(id)
+        StringBuilder sql = new StringBuilder("UPDATE parts SET updated_at = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(LocalDateTime.now());
+        appendChanges(sql, parameters, request);
+        sql.append(" WHERE id = ? RETURNING *");
+        parameters.add(id);
+        return setBasedWrites.updateReturning("parts", id, sql.toString(), parameters, Part.class)
                 .orElseThrow(() -> new NotFoundException("Part", id));
+    }
 
-        if (request.name() != null) {
-            part.setName(request.name().trim());
+    /**
+     * Appends a {@code , column = ?} assignment for every non-null field of {@code changes}.
+     *
+     * @return the number of assignments appended
+     */
+    static int appendChanges(StringBuilder sql, List<Object> parameters, PartUpdateRequest changes) {
+        int before = parameters.size();
+        if (changes.name() != null) {
+            sql.append(", name = ?");
+            parameters.add(changes.name().trim());
         }
-        if (request.description() != null) {
-            part.setDescription(request.description().trim().isEmpty() ? null : request.description().trim());
+        if (changes.description() != null) {
+            sql.append(", description = ?");
+            parameters.add(changes.description().trim().isEmpty() ? null : changes.description().trim());
         }
-        if (request.type() != null) {
-            part.setType(request.type());
+        if (changes.type() != null) {
+            sql.append(", type = ?");
+            parameters.add(changes.type().name());
         }
-        if (request.location() != null) {
-            part.setLocation(request.location().trim());
+        if (changes.location() != null) {
+            sql.append(", location = ?");
+            parameters.add(changes.location().trim());
         }
-        if (request.quantity() != null) {
-            part.setQuantity(request.quantity());
+        if (changes.quantity() != null) {
+            sql.append(", quantity = ?");
+            parameters.add(changes.quantity());
         }
-        if (request.condition() != null) {
-            part.setCondition(request.condition());
+        if (changes.condition() != null) {
+            sql.append(", condition = ?");
+            parameters.add(changes.condition().name());
         }
-        if (request.notes() != null) {
-            part.setNotes(request.notes().trim().isEmpty() ? null : request.notes().trim());
+        if (changes.notes() != null) {
+            sql.append(", notes = ?");
+            parameters.add(changes.notes().trim().isEmpty() ? null : changes.notes().trim());
         }
-        part.setUpdatedAt(LocalDateTime.now());
-
-        return partRepository.update(part);
+        return parameters.size() - before;
     }
 
-    @Transactional
+    /**
+     * Deletes in one {@code DELETE ... RETURNING} round trip; no returned id means the part did not exist.
+     */
     public void delete(Long id) {
-        Part part = partRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Part", id));
-        partRepository.delete(part);
+        if (setBasedWrites.deleteByIds("parts", List.of(id)).isEmpty()) {
+            throw new NotFoundException("Part", id);
+        }
     }
 
 }
@@ -0,0 +1,49 @@
+package ee.smit.inventory.part;
+
+import ee.smit.inventory.common.QueryUtils;
+import io.micronaut.data.repository.jpa.criteria.PredicateSpecification;
+
+/**
+ * Criteria building blocks for {@link PartRepository#findAll(PredicateSpecification, io.micronaut.data.model.Pageable)}.
+ * Each filter is a separate specification so callers can AND together whichever ones were requested
+ * and the database receives a single predicate.
+ */
+public final class PartSpecifications {
+
+    private PartSpecifications() {}
+
+    public static PredicateSpecification<Part> hasType(PartType type) {
+        return (root, criteriaBuilder) -> criteriaBuilder.equal(root.get("type"), type);
+    }
+
+    public static PredicateSpecification<Part> hasCondition(PartCondition condition) {
+        return (root, criteriaBuilder) -> criteriaBuilder.equal(root.get("condition"), condition);
+    }
+
+    /**
+     * Prefix match on location; served by the {@code text_pattern_ops} index from V10.
+     */
+    public static PredicateSpecification<Part> locationStartsWith(String prefix) {
+        String pattern = QueryUtils.escapeLikePattern(prefix) + "%";
+        return (root, criteriaBuilder) -> criteriaBuilder.like(root.get("location"), pattern);
+    }
+
+    public static PredicateSpecification<Part> quantityAtLeast(int min) {
+        return (root, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("quantity"), min);
+    }
+
+    public static PredicateSpecification<Part> quantityAtMost(int max) {
+        return (root, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("quantity"), max);
+    }
+
+    /**
+     * Case-insensitive substring match on name or description, using the same {@code LOWER(column)}
+     * expressions as the trigram indexes from V5.
+     */
+    public static PredicateSpecification<Part> nameOrDescriptionContains(String text) {
+        String pattern = "%" + QueryUtils.escapeLikePattern(text.toLowerCase()) + "%";
+        return (root, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), pattern),
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), pattern));
+    }
+}
@@ -0,0 +1,34 @@
+package ee.smit.inventory.part;
+
+import ee.smit.inventory.common.TimedRepository;
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.r2dbc.annotation.R2dbcRepository;
+import io.micronaut.data.repository.GenericRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking read access to {@link Part} over R2DBC, used by the read endpoints that run on the event loop.
+ * Writes stay on {@link PartRepository}.
+ */
+@R2dbcRepository(dialect = Dialect.POSTGRES)
+@TimedRepository
+public interface ReactivePartRepository extends GenericRepository<Part, Long> {
+
+    Mono<Part> findById(Long id);
+
+    Flux<Part> list(Pageable pageable);
+
+    Flux<Part> findByType(PartType type);
+
+    @Query(PartRepository.SEARCH_BY_NAME_OR_DESCRIPTION)
+    Flux<Part> searchByNameOrDescription(String query);
+
+    @Query(PartRepository.COUNT)
+    Mono<Long> count();
+
+    @Query(PartRepository.ESTIMATE_COUNT)
+    Mono<Long> estimateCount();
+}
@@ -0,0 +1,37 @@
+package ee.smit.inventory.record;
+
+import ee.smit.inventory.common.TimedRepository;
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.r2dbc.annotation.R2dbcRepository;
+import io.micronaut.data.repository.GenericRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking read access to {@link VinylRecord} over R2DBC, used by the read endpoints that run on the
+ * event loop. Writes stay on {@link RecordRepository}.
+ */
+@R2dbcRepository(dialect = Dialect.POSTGRES)
+@TimedRepository
+public interface ReactiveRecordRepository extends GenericRepository<VinylRecord, Long> {
+
+    Mono<VinylRecord> findById(Long id);
+
+    Flux<VinylRecord> list(Pageable pageable);
+
+    Flux<VinylRecord> findByGenre(Genre genre);
+
+    @Query(RecordRepository.SEARCH_BY_TITLE_OR_ARTIST)
+    Flux<VinylRecord> searchByTitleOrArtist(String query);
+
+    @Query(RecordRepository.SEARCH_RANKED)
+    Flux<VinylRecord> searchRanked(String query, int limit);
+
+    @Query(RecordRepository.COUNT)
+    Mono<Long> count();
+
+    @Query(RecordRepository.ESTIMATE_COUNT)
+    Mono<Long> estimateCount();
+}
@@ -0,0 +1,76 @@
+package ee.smit.inventory.record;
+
+import ee.smit.inventory.common.BulkWriteResponse;
+import ee.smit.inventory.common.SetBasedWrites;
+import ee.smit.inventory.exception.ValidationException;
+import ee.smit.inventory.record.dto.RecordUpdateRequest;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service for filter-based bulk operations on {@link VinylRecord} entities.
+ * Each operation runs as a single UPDATE or DELETE statement.
+ */
+@Singleton
+public class RecordBulkService {
+
+    private final SetBasedWrites setBasedWrites;
+
+    public RecordBulkService(SetBasedWrites setBasedWrites) {
+        this.setBasedWrites = setBasedWrites;
+    }
+
+    /**
+     * Applies the non-null fields of {@code changes} to every record matching the filters.
+     */
+    public BulkWriteResponse updateWhere(@Nullable Genre genre, @Nullable RecordCondition condition,
+                                         @Nullable String artist, RecordUpdateRequest changes) {
+        StringBuilder sql = new StringBuilder("UPDATE vinyl_records SET updated_at = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(LocalDateTime.now());
+        if (RecordService.appendChanges(sql, parameters, changes) == 0) {
+            throw new ValidationException("body", "At least one field to update is required");
+        }
+        appendFilters(sql, parameters, genre, condition, artist);
+        return setBasedWrites.execute("vinyl_records", sql.toString(), parameters);
+    }
+
+    /**
+     * Deletes the records with the given ids in one statement; unknown ids are skipped.
+     */
+    public BulkWriteResponse deleteByIds(List<Long> ids) {
+        return new BulkWriteResponse(setBasedWrites.deleteByIds("vinyl_records", ids).size());
+    }
+
+    public BulkWriteResponse deleteWhere(@Nullable Genre genre, @Nullable RecordCondition condition,
+                                         @Nullable String artist) {
+        StringBuilder sql = new StringBuilder("DELETE FROM vinyl_records");
+        List<Object> parameters = new ArrayList<>();
+        appendFilters(sql, parameters, genre, condition, artist);
+        return setBasedWrites.execute("vinyl_records", sql.toString(), parameters);
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> parameters, @Nullable Genre genre,
+                                      @Nullable RecordCondition condition, @Nullable String artist) {
+        if (genre == null && condition == null && (artist == null || artist.isBlank())) {
+            throw new ValidationException("filter", "At least one filter (genre, condition, artist) is required");
+        }
+        sql.append(" WHERE TRUE");
+        if (genre != null) {
+            sql.append(" AND genre = ?");
+            parameters.add(genre.name());
+        }
+        if (condition != null) {
+            sql.append(" AND condition = ?");
+            parameters.add(condition.name());
+        }
+        if (artist != null && !artist.isBlank()) {
+            sql.append(" AND artist = ?");
+            parameters.add(artist.trim());
+        }
+    }
+}
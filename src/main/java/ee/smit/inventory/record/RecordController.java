@@ -1,6 +1,13 @@
 package ee.smit.inventory.record;
 
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.common.BulkWriteResponse;
+import ee.smit.inventory.common.Cursor;
+import ee.smit.inventory.common.CursorPageResponse;
+import ee.smit.inventory.common.ETags;
+import ee.smit.inventory.common.FacetsResponse;
 import ee.smit.inventory.common.PageResponse;
+import ee.smit.inventory.common.RequestExecutorFactory;
 import ee.smit.inventory.exception.ErrorResponse;
 import ee.smit.inventory.exception.NotFoundException;
 import ee.smit.inventory.exception.ValidationException;
@@ -10,12 +17,14 @@ import ee.smit.inventory.record.dto.RecordUpdateRequest;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.data.model.Pageable;
 import io.micronaut.data.model.Sort;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.*;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.validation.Validated;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -26,28 +35,45 @@ import io.micronaut.security.annotation.Secured;
 
 import ee.smit.inventory.security.Roles;
 import jakarta.validation.Valid;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
 
 /**
  * REST controller for managing vinyl records.
  * Provides CRUD operations for Katrin's vinyl record collection.
+ * Lookups by id, pages, genre and search are reactive and run on the event loop; every other route
+ * blocks on JDBC and runs on the request executor.
  */
 @Controller("/api/records")
-@ExecuteOn(TaskExecutors.BLOCKING)
 @Validated
 @Secured({Roles.ROLE_RECORDS})
 @Tag(name = "Vinyl Records", description = "Manage Katrin's vinyl record collection")
 public class RecordController {
 
     private final RecordService recordService;
+    private final RecordImportService recordImportService;
+    private final RecordBulkService recordBulkService;
+    private final RecordFacetService recordFacetService;
+    private final ETags eTags;
 
-    public RecordController(RecordService recordService) {
+    public RecordController(RecordService recordService, RecordImportService recordImportService,
+                            RecordBulkService recordBulkService, RecordFacetService recordFacetService,
+                            ETags eTags) {
         this.recordService = recordService;
+        this.recordImportService = recordImportService;
+        this.recordBulkService = recordBulkService;
+        this.recordFacetService = recordFacetService;
+        this.eTags = eTags;
     }
 
     @Post
+    @ExecuteOn(RequestExecutorFactory.NAME)
     @Operation(summary = "Create a new record", description = "Add a new vinyl record to the collection")
     @ApiResponse(responseCode = "201", description = "Record created successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
@@ -58,14 +84,25 @@ public class RecordController {
                 .headers(headers -> headers.location(URI.create("/api/records/" + record.getId())));
     }
 
+    @Post(value = "/import", consumes = "text/csv")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Import records from CSV", description = "Import a Discogs-style CSV export with the header title,artist,release_year,genre,purchase_source,purchase_date,condition,notes. Discogs grades such as VG+ are accepted as conditions. Unknown genres and conditions are reported as per-row errors, and invalid rows are reported without aborting the import")
+    @ApiResponse(responseCode = "200", description = "Import summary with per-row errors (index is the 0-based data row)")
+    @ApiResponse(responseCode = "400", description = "Malformed CSV", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public BulkImportResponse importCsv(@Body InputStream csv) {
+        return recordImportService.importCsv(csv);
+    }
+
     @Get("/{id}")
     @Operation(summary = "Get a record by ID", description = "Retrieve a specific vinyl record by its ID")
     @ApiResponse(responseCode = "200", description = "Record found")
+    @ApiResponse(responseCode = "304", description = "Record unchanged since the ETag given in If-None-Match")
     @ApiResponse(responseCode = "404", description = "Record not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
-    public RecordResponse findById(@Parameter(description = "Record ID") @PathVariable Long id) {
+    public Mono<HttpResponse<RecordResponse>> findById(HttpRequest<?> request, @Parameter(description = "Record ID") @PathVariable Long id) {
         return recordService.findById(id)
-                .map(RecordResponse::fromEntity)
-                .orElseThrow(() -> new NotFoundException("VinylRecord", id));
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("VinylRecord", id)))
+                .map(record -> ETags.conditional(request, ETags.forEntity(record.getId(), record.getUpdatedAt()),
+                        () -> RecordResponse.fromEntity(record)));
     }
 
     private static final Set<String> SORTABLE_FIELDS = Set.of("title", "artist", "releaseYear", "genre", "condition");
@@ -73,12 +110,15 @@ public class RecordController {
     @Get
     @Operation(summary = "Get all records", description = "Retrieve all vinyl records in the collection with pagination")
     @ApiResponse(responseCode = "200", description = "Paginated list of records")
+    @ApiResponse(responseCode = "304", description = "Records unchanged since the ETag given in If-None-Match")
     @ApiResponse(responseCode = "400", description = "Invalid sort field", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
-    public PageResponse<RecordResponse> findAll(
+    public Mono<HttpResponse<PageResponse<RecordResponse>>> findAll(
+            HttpRequest<?> request,
             @Parameter(description = "Page number (0-based)") @QueryValue(defaultValue = "0") int page,
             @Parameter(description = "Page size") @QueryValue(defaultValue = "20") int size,
             @Parameter(description = "Sort field") @Nullable @QueryValue String sort,
-            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction) {
+            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction,
+            @Parameter(description = "Total count mode (exact or estimate)") @QueryValue(defaultValue = "exact") String count) {
         if (page < 0) {
             throw new ValidationException("page", "Page number must be non-negative");
         }
@@ -88,6 +128,9 @@ public class RecordController {
         if (sort != null && !SORTABLE_FIELDS.contains(sort)) {
             throw new ValidationException("sort", "Invalid sort field: " + sort);
         }
+        if (!"exact".equalsIgnoreCase(count) && !"estimate".equalsIgnoreCase(count)) {
+            throw new ValidationException("count", "Invalid count mode: " + count);
+        }
         Pageable pageable;
         if (sort != null) {
             Sort.Order order = "DESC".equalsIgnoreCase(direction)
@@ -97,33 +140,151 @@ public class RecordController {
         } else {
             pageable = Pageable.from(page, size, Sort.of(Sort.Order.asc("id")));
         }
-        return PageResponse.from(recordService.findAll(pageable), RecordResponse::fromEntity);
+        return eTags.forCollectionAsync("vinyl_records", request).flatMap(etag -> ETags.conditional(request, etag,
+                recordService.findAll(pageable, "estimate".equalsIgnoreCase(count))
+                        .map(records -> PageResponse.from(records, RecordResponse::fromEntity))));
+    }
+
+    @Get("/query")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Query records", description = "Retrieve vinyl records matching any combination of filters with pagination. All filters are combined with AND in a single query; ranges are inclusive")
+    @ApiResponse(responseCode = "200", description = "Paginated list of matching records")
+    @ApiResponse(responseCode = "304", description = "Records unchanged since the ETag given in If-None-Match")
+    @ApiResponse(responseCode = "400", description = "Invalid filter, sort field or page", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public HttpResponse<PageResponse<RecordResponse>> query(
+            HttpRequest<?> request,
+            @Parameter(description = "Genre filter") @Nullable @QueryValue Genre genre,
+            @Parameter(description = "Record condition filter") @Nullable @QueryValue RecordCondition condition,
+            @Parameter(description = "Earliest release year") @Nullable @QueryValue Integer yearFrom,
+            @Parameter(description = "Latest release year") @Nullable @QueryValue Integer yearTo,
+            @Parameter(description = "Earliest purchase date (yyyy-MM-dd)") @Nullable @QueryValue LocalDate purchasedFrom,
+            @Parameter(description = "Latest purchase date (yyyy-MM-dd)") @Nullable @QueryValue LocalDate purchasedTo,
+            @Parameter(description = "Text to find in title or artist") @Nullable @QueryValue String q,
+            @Parameter(description = "Page number (0-based)") @QueryValue(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @QueryValue(defaultValue = "20") int size,
+            @Parameter(description = "Sort field") @Nullable @QueryValue String sort,
+            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction) {
+        if (page < 0) {
+            throw new ValidationException("page", "Page number must be non-negative");
+        }
+        if (size < 1 || size > 100) {
+            throw new ValidationException("size", "Page size must be between 1 and 100");
+        }
+        if (sort != null && !SORTABLE_FIELDS.contains(sort)) {
+            throw new ValidationException("sort", "Invalid sort field: " + sort);
+        }
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new ValidationException("yearFrom", "Start year must not be after end year");
+        }
+        if (purchasedFrom != null && purchasedTo != null && purchasedFrom.isAfter(purchasedTo)) {
+            throw new ValidationException("purchasedFrom", "Start date must not be after end date");
+        }
+        Sort.Order order = sort == null
+                ? Sort.Order.asc("id")
+                : "DESC".equalsIgnoreCase(direction) ? Sort.Order.desc(sort) : Sort.Order.asc(sort);
+        Pageable pageable = Pageable.from(page, size, Sort.of(order));
+        return ETags.conditional(request, eTags.forCollection("vinyl_records", request), () -> PageResponse.from(
+                recordService.query(genre, condition, yearFrom, yearTo, purchasedFrom, purchasedTo, q, pageable),
+                RecordResponse::fromEntity));
+    }
+
+    @Get("/facets")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Get record facets", description = "Count records per genre, condition and release decade in one query, optionally narrowed by the same filters as /query")
+    @ApiResponse(responseCode = "200", description = "Total and per-facet counts")
+    @ApiResponse(responseCode = "400", description = "Invalid filter", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public FacetsResponse facets(
+            @Parameter(description = "Genre filter") @Nullable @QueryValue Genre genre,
+            @Parameter(description = "Record condition filter") @Nullable @QueryValue RecordCondition condition,
+            @Parameter(description = "Earliest release year") @Nullable @QueryValue Integer yearFrom,
+            @Parameter(description = "Latest release year") @Nullable @QueryValue Integer yearTo,
+            @Parameter(description = "Earliest purchase date (yyyy-MM-dd)") @Nullable @QueryValue LocalDate purchasedFrom,
+            @Parameter(description = "Latest purchase date (yyyy-MM-dd)") @Nullable @QueryValue LocalDate purchasedTo,
+            @Parameter(description = "Text to find in title or artist") @Nullable @QueryValue String q) {
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new ValidationException("yearFrom", "Start year must not be after end year");
+        }
+        if (purchasedFrom != null && purchasedTo != null && purchasedFrom.isAfter(purchasedTo)) {
+            throw new ValidationException("purchasedFrom", "Start date must not be after end date");
+        }
+        return recordFacetService.facets(genre, condition, yearFrom, yearTo, purchasedFrom, purchasedTo, q);
+    }
+
+    @Get("/cursor")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Get all records by cursor", description = "Retrieve vinyl records with keyset pagination. Pass nextCursor from the previous page as 'after'; no total count is computed")
+    @ApiResponse(responseCode = "200", description = "Cursor-paginated list of records")
+    @ApiResponse(responseCode = "304", description = "Records unchanged since the ETag given in If-None-Match")
+    @ApiResponse(responseCode = "400", description = "Invalid sort field or cursor", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public HttpResponse<CursorPageResponse<RecordResponse>> findAllByCursor(
+            HttpRequest<?> request,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @Nullable @QueryValue String after,
+            @Parameter(description = "Page size") @QueryValue(defaultValue = "20") int size,
+            @Parameter(description = "Sort field") @Nullable @QueryValue String sort,
+            @Parameter(description = "Sort direction (ASC or DESC)") @Nullable @QueryValue String direction) {
+        if (size < 1 || size > 100) {
+            throw new ValidationException("size", "Page size must be between 1 and 100");
+        }
+        if (sort != null && !SORTABLE_FIELDS.contains(sort)) {
+            throw new ValidationException("sort", "Invalid sort field: " + sort);
+        }
+        Cursor cursor = after != null && !after.isBlank() ? Cursor.decode(after) : null;
+        boolean descending = sort != null && "DESC".equalsIgnoreCase(direction);
+        return ETags.conditional(request, eTags.forCollection("vinyl_records", request), () -> CursorPageResponse.from(
+                recordService.findPage(sort != null ? sort : "id", descending, cursor, size),
+                RecordResponse::fromEntity));
+    }
+
+    @Get(value = "/export.csv", produces = "text/csv")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Export records as CSV", description = "Stream the whole vinyl record collection as RFC 4180 CSV. Compressed with gzip when the client accepts it")
+    @ApiResponse(responseCode = "200", description = "CSV with a header row and one record per line")
+    public Publisher<ByteBuf> exportCsv() {
+        return recordService.exportCsv(ByteBufAllocator.DEFAULT);
     }
 
     @Get("/genre/{genre}")
     @Operation(summary = "Get records by genre", description = "Filter vinyl records by their genre")
     @ApiResponse(responseCode = "200", description = "List of records matching the genre")
-    public List<RecordResponse> findByGenre(
+    @ApiResponse(responseCode = "304", description = "Records unchanged since the ETag given in If-None-Match")
+    public Mono<HttpResponse<List<RecordResponse>>> findByGenre(
+            HttpRequest<?> request,
             @Parameter(description = "Genre (ROCK, JAZZ, BLUES, CLASSICAL, ELECTRONIC, POP, OTHER)") @PathVariable Genre genre) {
-        return recordService.findByGenre(genre).stream()
-                .map(RecordResponse::fromEntity)
-                .toList();
+        return eTags.forCollectionAsync("vinyl_records", request).flatMap(etag -> ETags.conditional(request, etag,
+                recordService.findByGenre(genre).map(records -> records.stream()
+                        .map(RecordResponse::fromEntity)
+                        .toList())));
     }
 
     @Get("/search")
-    @Operation(summary = "Search records", description = "Search vinyl records by title or artist")
+    @Operation(summary = "Search records", description = "Search vinyl records by title or artist, or rank matches across title, artist and notes")
     @ApiResponse(responseCode = "200", description = "List of matching records")
-    public List<RecordResponse> search(
-            @Parameter(description = "Search query") @QueryValue String q) {
+    @ApiResponse(responseCode = "304", description = "Records unchanged since the ETag given in If-None-Match")
+    @ApiResponse(responseCode = "400", description = "Invalid search parameters", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public Mono<HttpResponse<List<RecordResponse>>> search(
+            HttpRequest<?> request,
+            @Parameter(description = "Search query") @QueryValue String q,
+            @Parameter(description = "Search mode (substring or ranked)") @QueryValue(defaultValue = "substring") String mode,
+            @Parameter(description = "Maximum number of ranked results") @QueryValue(defaultValue = "20") int limit) {
         if (q == null || q.isBlank()) {
             throw new ValidationException("q", "Search query must not be blank");
         }
-        return recordService.search(q).stream()
-                .map(RecordResponse::fromEntity)
-                .toList();
+        boolean ranked = "ranked".equalsIgnoreCase(mode);
+        if (!ranked && !"substring".equalsIgnoreCase(mode)) {
+            throw new ValidationException("mode", "Invalid search mode: " + mode);
+        }
+        if (ranked && (limit < 1 || limit > 100)) {
+            throw new ValidationException("limit", "Limit must be between 1 and 100");
+        }
+        Mono<List<VinylRecord>> records = ranked ? recordService.searchRanked(q, limit) : recordService.search(q);
+        return eTags.forCollectionAsync("vinyl_records", request).flatMap(etag -> ETags.conditional(request, etag,
+                records.map(matches -> matches.stream()
+                        .map(RecordResponse::fromEntity)
+                        .toList())));
     }
 
     @Put("/{id}")
+    @ExecuteOn(RequestExecutorFactory.NAME)
     @Operation(summary = "Update a record", description = "Update an existing vinyl record")
     @ApiResponse(responseCode = "200", description = "Record updated successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
@@ -136,6 +297,7 @@ public class RecordController {
     }
 
     @Delete("/{id}")
+    @ExecuteOn(RequestExecutorFactory.NAME)
     @Status(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete a record", description = "Remove a vinyl record from the collection")
     @ApiResponse(responseCode = "204", description = "Record deleted successfully")
@@ -143,4 +305,39 @@ public class RecordController {
     public void delete(@Parameter(description = "Record ID") @PathVariable Long id) {
         recordService.delete(id);
     }
+
+    @Patch
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Update records by filter", description = "Apply the given fields to every record matching the filters in a single statement. At least one filter is required")
+    @ApiResponse(responseCode = "200", description = "Number of updated records")
+    @ApiResponse(responseCode = "400", description = "Invalid input, missing filter or too many matching records", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public BulkWriteResponse updateWhere(
+            @Parameter(description = "Genre filter") @Nullable @QueryValue Genre genre,
+            @Parameter(description = "Record condition filter") @Nullable @QueryValue RecordCondition condition,
+            @Parameter(description = "Exact artist filter") @Nullable @QueryValue String artist,
+            @Body @Valid RecordUpdateRequest request) {
+        return recordBulkService.updateWhere(genre, condition, artist, request);
+    }
+
+    @Delete("/batch")
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Delete records by id", description = "Remove every record with one of the given ids in a single statement. Unknown ids are skipped")
+    @ApiResponse(responseCode = "200", description = "Number of deleted records")
+    @ApiResponse(responseCode = "400", description = "No ids or too many ids", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public BulkWriteResponse deleteByIds(
+            @Parameter(description = "Record IDs, repeated or comma-separated") @QueryValue List<Long> ids) {
+        return recordBulkService.deleteByIds(ids);
+    }
+
+    @Delete
+    @ExecuteOn(RequestExecutorFactory.NAME)
+    @Operation(summary = "Delete records by filter", description = "Remove every record matching the filters in a single statement. At least one filter is required")
+    @ApiResponse(responseCode = "200", description = "Number of deleted records")
+    @ApiResponse(responseCode = "400", description = "Missing filter or too many matching records", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    public BulkWriteResponse deleteWhere(
+            @Parameter(description = "Genre filter") @Nullable @QueryValue Genre genre,
+            @Parameter(description = "Record condition filter") @Nullable @QueryValue RecordCondition condition,
+            @Parameter(description = "Exact artist filter") @Nullable @QueryValue String artist) {
+        return recordBulkService.deleteWhere(genre, condition, artist);
+    }
 }
@@ -0,0 +1,121 @@
+package ee.smit.inventory.record;
+
+import ee.smit.inventory.common.FacetsResponse;
+import ee.smit.inventory.common.QueryResultCache;
+import ee.smit.inventory.common.QueryUtils;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import jakarta.inject.Singleton;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes record counts per genre, per condition and per release decade.
+ * All facets come from one {@code GROUP BY GROUPING SETS} scan. Results are cached per filter in the
+ * {@link QueryResultCache}, keyed by the version of {@code vinyl_records} read before the scan.
+ */
+@Singleton
+public class RecordFacetService {
+
+    private static final String DECADE = "(release_year / 10) * 10";
+
+    private final JdbcOperations jdbcOperations;
+    private final QueryResultCache queryResultCache;
+
+    public RecordFacetService(JdbcOperations jdbcOperations, QueryResultCache queryResultCache) {
+        this.jdbcOperations = jdbcOperations;
+        this.queryResultCache = queryResultCache;
+    }
+
+    /**
+     * Accepts the same filters as {@link RecordService#query}; {@code null} filters are ignored.
+     */
+    public FacetsResponse facets(@Nullable Genre genre, @Nullable RecordCondition condition,
+                                 @Nullable Integer yearFrom, @Nullable Integer yearTo,
+                                 @Nullable LocalDate purchasedFrom, @Nullable LocalDate purchasedTo,
+                                 @Nullable String text) {
+        List<Object> filters = Arrays.asList(genre, condition, yearFrom, yearTo, purchasedFrom, purchasedTo, text);
+        return queryResultCache.get("vinyl_records", "facets", filters, Argument.of(FacetsResponse.class),
+                () -> load(genre, condition, yearFrom, yearTo, purchasedFrom, purchasedTo, text));
+    }
+
+    private FacetsResponse load(@Nullable Genre genre, @Nullable RecordCondition condition,
+                                @Nullable Integer yearFrom, @Nullable Integer yearTo,
+                                @Nullable LocalDate purchasedFrom, @Nullable LocalDate purchasedTo,
+                                @Nullable String text) {
+        StringBuilder sql = new StringBuilder("SELECT genre, condition, " + DECADE + " AS decade,"
+                + " GROUPING(genre) AS all_genres, GROUPING(condition) AS all_conditions,"
+                + " GROUPING(" + DECADE + ") AS all_decades, COUNT(*) AS row_count"
+                + " FROM vinyl_records WHERE TRUE");
+        List<Object> parameters = new ArrayList<>();
+        if (genre != null) {
+            sql.append(" AND genre = ?");
+            parameters.add(genre.name());
+        }
+        if (condition != null) {
+            sql.append(" AND condition = ?");
+            parameters.add(condition.name());
+        }
+        if (yearFrom != null) {
+            sql.append(" AND release_year >= ?");
+            parameters.add(yearFrom);
+        }
+        if (yearTo != null) {
+            sql.append(" AND release_year <= ?");
+            parameters.add(yearTo);
+        }
+        if (purchasedFrom != null) {
+            sql.append(" AND purchase_date >= ?");
+            parameters.add(purchasedFrom);
+        }
+        if (purchasedTo != null) {
+            sql.append(" AND purchase_date <= ?");
+            parameters.add(purchasedTo);
+        }
+        if (text != null && !text.isBlank()) {
+            sql.append(" AND (LOWER(title) LIKE ? OR LOWER(artist) LIKE ?)");
+            String pattern = "%" + QueryUtils.escapeLikePattern(text.trim().toLowerCase()) + "%";
+            parameters.add(pattern);
+            parameters.add(pattern);
+        }
+        sql.append(" GROUP BY GROUPING SETS ((genre), (condition), (" + DECADE + "), ())");
+        sql.append(" ORDER BY decade");
+
+        Map<String, Long> genres = FacetsResponse.zeroCounts(Genre.values());
+        Map<String, Long> conditions = FacetsResponse.zeroCounts(RecordCondition.values());
+        Map<String, Long> decades = new LinkedHashMap<>();
+        long total = jdbcOperations.prepareStatement(sql.toString(), statement -> {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            long count = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long rows = resultSet.getLong("row_count");
+                    if (resultSet.getInt("all_genres") == 0) {
+                        genres.put(resultSet.getString("genre"), rows);
+                    } else if (resultSet.getInt("all_conditions") == 0) {
+                        conditions.put(resultSet.getString("condition"), rows);
+                    } else if (resultSet.getInt("all_decades") == 0) {
+                        decades.put(resultSet.getString("decade"), rows);
+                    } else {
+                        count = rows;
+                    }
+                }
+            }
+            return count;
+        });
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        facets.put("genre", genres);
+        facets.put("condition", conditions);
+        facets.put("decade", decades);
+        return new FacetsResponse(total, facets);
+    }
+}
@@ -0,0 +1,174 @@
+package ee.smit.inventory.record;
+
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.common.TableChangedEvent;
+import ee.smit.inventory.exception.ValidationException;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.core.type.Argument;
+import io.micronaut.json.JsonMapper;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Singleton;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Imports vinyl records from CSV using PostgreSQL COPY.
+ * The upload is streamed into the {@code vinyl_records_staging} table, validated and mapped onto
+ * {@link Genre} and {@link RecordCondition} with set-based UPDATEs, and copied into
+ * {@code vinyl_records} with a single INSERT ... SELECT, all in one transaction.
+ *
+ * <p>Expected header: {@code title,artist,release_year,genre,purchase_source,purchase_date,condition,notes}.
+ * Genres may use the enum names or the Discogs genres {@code Funk / Soul} and {@code Folk, World, & Country};
+ * conditions may use the enum names or Discogs grades such as {@code Very Good Plus (VG+)}.
+ * Rows with any other genre or condition are reported rather than imported.
+ */
+@Singleton
+public class RecordImportService {
+
+    private static final String COPY_SQL = "COPY vinyl_records_staging"
+            + " (title, artist, release_year, genre, purchase_source, purchase_date, condition, notes)"
+            + " FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    private static final String GENRE_NAMES = Arrays.stream(Genre.values())
+            .map(genre -> "'" + genre.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    private static final String NORMALIZED_GENRE = "UPPER(REGEXP_REPLACE(TRIM(genre), '[^A-Za-z]+', '_', 'g'))";
+
+    private static final String CONDITION_CODE =
+            "COALESCE(SUBSTRING(UPPER(TRIM(condition)) FROM '\\(([^)]*)\\)'), UPPER(TRIM(condition)))";
+
+    private static final String MAP_SQL = "UPDATE vinyl_records_staging SET"
+            + " mapped_release_year = CASE WHEN TRIM(release_year) ~ '^[0-9]{1,4}$'"
+            + "   THEN CAST(TRIM(release_year) AS INT) END,"
+            + " mapped_genre = CASE"
+            + "   WHEN NULLIF(TRIM(genre), '') IS NULL THEN NULL"
+            + "   WHEN " + NORMALIZED_GENRE + " IN (" + GENRE_NAMES + ") THEN " + NORMALIZED_GENRE
+            + "   WHEN " + NORMALIZED_GENRE + " = 'FUNK_SOUL' THEN 'SOUL'"
+            + "   WHEN " + NORMALIZED_GENRE + " = 'FOLK_WORLD_COUNTRY' THEN 'FOLK'"
+            + "   END,"
+            + " mapped_purchase_date = CASE WHEN TRIM(purchase_date) ~ '^[0-9]{4}-[0-9]{2}-[0-9]{2}$'"
+            + "   THEN try_cast_date(TRIM(purchase_date)) END,"
+            + " mapped_condition = CASE " + CONDITION_CODE
+            + "   WHEN 'MINT' THEN 'MINT' WHEN 'M' THEN 'MINT'"
+            + "   WHEN 'NEAR_MINT' THEN 'NEAR_MINT' WHEN 'NEAR MINT' THEN 'NEAR_MINT'"
+            + "   WHEN 'NM' THEN 'NEAR_MINT' WHEN 'M-' THEN 'NEAR_MINT' WHEN 'NM OR M-' THEN 'NEAR_MINT'"
+            + "   WHEN 'EXCELLENT' THEN 'EXCELLENT' WHEN 'EX' THEN 'EXCELLENT' WHEN 'VG+' THEN 'EXCELLENT'"
+            + "   WHEN 'VERY_GOOD' THEN 'VERY_GOOD' WHEN 'VERY GOOD' THEN 'VERY_GOOD' WHEN 'VG' THEN 'VERY_GOOD'"
+            + "   WHEN 'GOOD' THEN 'GOOD' WHEN 'G' THEN 'GOOD' WHEN 'G+' THEN 'GOOD'"
+            + "   WHEN 'FAIR' THEN 'FAIR' WHEN 'F' THEN 'FAIR'"
+            + "   WHEN 'POOR' THEN 'POOR' WHEN 'P' THEN 'POOR'"
+            + "   END";
+
+    private static final String VALIDATE_SQL = "UPDATE vinyl_records_staging SET errors = NULLIF(jsonb_strip_nulls(jsonb_build_object("
+            + " 'title', CASE WHEN NULLIF(TRIM(title), '') IS NULL THEN 'Title is required'"
+            + "   WHEN LENGTH(TRIM(title)) > 255 THEN 'Title must be less than 255 characters' END,"
+            + " 'artist', CASE WHEN NULLIF(TRIM(artist), '') IS NULL THEN 'Artist is required'"
+            + "   WHEN LENGTH(TRIM(artist)) > 255 THEN 'Artist must be less than 255 characters' END,"
+            + " 'releaseYear', CASE WHEN NULLIF(TRIM(release_year), '') IS NULL THEN 'Release year is required'"
+            + "   WHEN mapped_release_year IS NULL THEN 'Release year must be a number'"
+            + "   WHEN mapped_release_year < 1900 THEN 'Release year must be 1900 or later'"
+            + "   WHEN mapped_release_year > 2100 THEN 'Release year must be 2100 or earlier' END,"
+            + " 'genre', CASE WHEN NULLIF(TRIM(genre), '') IS NULL THEN 'Genre is required'"
+            + "   WHEN mapped_genre IS NULL THEN 'Unknown genre: ' || TRIM(genre) END,"
+            + " 'purchaseSource', CASE WHEN LENGTH(TRIM(purchase_source)) > 255"
+            + "   THEN 'Purchase source must be less than 255 characters' END,"
+            + " 'purchaseDate', CASE WHEN NULLIF(TRIM(purchase_date), '') IS NOT NULL AND mapped_purchase_date IS NULL"
+            + "   THEN 'Purchase date must be a valid date (yyyy-MM-dd)' END,"
+            + " 'condition', CASE WHEN NULLIF(TRIM(condition), '') IS NULL THEN 'Condition is required'"
+            + "   WHEN mapped_condition IS NULL THEN 'Unknown condition: ' || TRIM(condition) END,"
+            + " 'notes', CASE WHEN LENGTH(TRIM(notes)) > 255 THEN 'Notes must be less than 255 characters' END"
+            + " )), CAST('{}' AS JSONB))";
+
+    private static final String INSERT_SQL = "INSERT INTO vinyl_records"
+            + " (title, artist, release_year, genre, purchase_source, purchase_date, condition, notes, created_at, updated_at)"
+            + " SELECT TRIM(title), TRIM(artist), mapped_release_year, mapped_genre, NULLIF(TRIM(purchase_source), ''),"
+            + " mapped_purchase_date, mapped_condition, NULLIF(TRIM(notes), ''), ?, ?"
+            + " FROM vinyl_records_staging WHERE errors IS NULL ORDER BY line_number";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*), COUNT(errors) FROM vinyl_records_staging";
+
+    private static final String ERRORS_SQL = "SELECT row_index, CAST(errors AS TEXT) FROM ("
+            + " SELECT ROW_NUMBER() OVER (ORDER BY line_number) - 1 AS row_index, errors FROM vinyl_records_staging"
+            + " ) numbered WHERE errors IS NOT NULL ORDER BY row_index LIMIT " + BulkImportResponse.MAX_REPORTED_ERRORS;
+
+    // Only this transaction's rows are visible, so this never touches concurrent imports
+    private static final String CLEANUP_SQL = "DELETE FROM vinyl_records_staging";
+
+    private final TransactionOperations<Connection> transactionOperations;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    public RecordImportService(TransactionOperations<Connection> transactionOperations, JsonMapper jsonMapper,
+                               ApplicationEventPublisher<TableChangedEvent> eventPublisher) {
+        this.transactionOperations = transactionOperations;
+        this.jsonMapper = jsonMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public BulkImportResponse importCsv(InputStream csv) {
+        return transactionOperations.executeWrite(status -> {
+            Connection connection = status.getConnection();
+            copyIntoStaging(connection, csv);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(MAP_SQL);
+                statement.executeUpdate(VALIDATE_SQL);
+            }
+            int inserted;
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                LocalDateTime now = LocalDateTime.now();
+                statement.setObject(1, now);
+                statement.setObject(2, now);
+                inserted = statement.executeUpdate();
+            }
+            if (inserted > 0) {
+                eventPublisher.publishEvent(new TableChangedEvent("vinyl_records"));
+            }
+            int received;
+            int failed;
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(COUNT_SQL)) {
+                resultSet.next();
+                received = resultSet.getInt(1);
+                failed = resultSet.getInt(2);
+            }
+            List<BulkImportResponse.ItemError> errors = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(ERRORS_SQL)) {
+                while (resultSet.next()) {
+                    Map<String, String> itemErrors = jsonMapper.readValue(resultSet.getString(2),
+                            Argument.mapOf(String.class, String.class));
+                    errors.add(new BulkImportResponse.ItemError(resultSet.getInt(1), itemErrors));
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(CLEANUP_SQL);
+            }
+            return new BulkImportResponse(received, inserted, failed, errors);
+        });
+    }
+
+    private void copyIntoStaging(Connection connection, InputStream csv) throws SQLException {
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, csv);
+        } catch (SQLException e) {
+            throw new ValidationException("file", "Could not read CSV: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
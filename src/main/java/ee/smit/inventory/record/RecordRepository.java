@@ -1,29 +1,72 @@
 package ee.smit.inventory.record;
 
+import ee.smit.inventory.common.TimedRepository;
 import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.Page;
 import io.micronaut.data.model.Pageable;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import io.micronaut.data.repository.jpa.JpaSpecificationExecutor;
 
 import java.util.List;
 
 /**
  * Repository interface for {@link VinylRecord} entity.
- * Provides CRUD operations and custom query methods.
+ * Provides CRUD operations, custom query methods and criteria queries via {@link RecordSpecifications}.
+ * Shared queries are constants so that {@link ReactiveRecordRepository} runs the same SQL.
  */
 @JdbcRepository(dialect = Dialect.POSTGRES)
-public interface RecordRepository extends CrudRepository<VinylRecord, Long> {
+@TimedRepository
+public interface RecordRepository extends CrudRepository<VinylRecord, Long>, JpaSpecificationExecutor<VinylRecord> {
+
+    String SEARCH_BY_TITLE_OR_ARTIST = "SELECT * FROM vinyl_records"
+            + " WHERE LOWER(title) LIKE LOWER('%' || :query || '%') ESCAPE '\\'"
+            + " OR LOWER(artist) LIKE LOWER('%' || :query || '%') ESCAPE '\\'";
+
+    /**
+     * Full-text search over the weighted {@code search_vector} column (title and artist weigh A,
+     * notes weigh C). Matching rows are found through the GIN index; every match is then ranked with
+     * {@code ts_rank} and sorted, and only the top {@code limit} are returned, best match first.
+     */
+    String SEARCH_RANKED = "SELECT * FROM vinyl_records WHERE search_vector @@ websearch_to_tsquery('english', :query)"
+            + " ORDER BY ts_rank(search_vector, websearch_to_tsquery('english', :query)) DESC, id"
+            + " LIMIT :limit";
+
+    String COUNT = "SELECT COALESCE((SELECT row_count FROM table_counters WHERE table_name = 'vinyl_records' AND group_key = '*'), 0)";
+
+    String ESTIMATE_COUNT = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass('vinyl_records')";
 
     Page<VinylRecord> findAll(Pageable pageable);
 
+    /**
+     * Page content without the count query that {@link #findAll(Pageable)} issues.
+     */
+    List<VinylRecord> list(Pageable pageable);
+
     List<VinylRecord> findByGenre(Genre genre);
 
     List<VinylRecord> findByCondition(RecordCondition condition);
 
-    @Query("SELECT * FROM vinyl_records WHERE LOWER(title) LIKE LOWER('%' || :query || '%') ESCAPE '\\' OR LOWER(artist) LIKE LOWER('%' || :query || '%') ESCAPE '\\'")
+    @Query(SEARCH_BY_TITLE_OR_ARTIST)
     List<VinylRecord> searchByTitleOrArtist(String query);
 
+    @Query(SEARCH_RANKED)
+    List<VinylRecord> searchRanked(String query, int limit);
+
+    /**
+     * Exact row count, read from the trigger-maintained {@code table_counters} row.
+     */
+    @Override
+    @Query(COUNT)
+    long count();
+
+    @Query("SELECT COALESCE((SELECT row_count FROM table_counters WHERE table_name = 'vinyl_records' AND group_key = :genre), 0)")
     long countByGenre(Genre genre);
+
+    /**
+     * Planner estimate from {@code pg_class.reltuples}; negative if the table has never been analyzed.
+     */
+    @Query(ESTIMATE_COUNT)
+    long estimateCount();
 }
@@ -1,29 +1,95 @@
 package ee.smit.inventory.record;
 
+import ee.smit.inventory.common.CsvEncoder;
+import ee.smit.inventory.common.Cursor;
+import ee.smit.inventory.common.KeysetPage;
+import ee.smit.inventory.common.KeysetQueries;
+import ee.smit.inventory.common.QueryResultCache;
 import ee.smit.inventory.common.QueryUtils;
+import ee.smit.inventory.common.SetBasedWrites;
+import ee.smit.inventory.common.StreamingQueries;
+import ee.smit.inventory.common.TableChangedEvent;
+import ee.smit.inventory.common.TracedService;
 import ee.smit.inventory.exception.NotFoundException;
 import ee.smit.inventory.record.dto.RecordCreateRequest;
 import ee.smit.inventory.record.dto.RecordUpdateRequest;
+import io.micronaut.cache.SyncCache;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import io.micronaut.core.type.GenericArgument;
 import io.micronaut.data.model.Page;
 import io.micronaut.data.model.Pageable;
+import io.micronaut.data.repository.jpa.criteria.PredicateSpecification;
+import io.micronaut.transaction.annotation.TransactionalEventListener;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import jakarta.transaction.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service class for {@link VinylRecord} entity.
- * Handles business logic and validation for vinyl records.
+ * Handles business logic and validation for vinyl records. Lookups by id, pages, genre and search
+ * read through {@link ReactiveRecordRepository} and never block the calling thread.
  */
 @Singleton
+@TracedService
 public class RecordService {
 
+    static final String CACHE_NAME = "records";
+
+    private static final Map<String, KeysetQueries.Column<VinylRecord>> KEYSET_COLUMNS = Map.of(
+            "id", new KeysetQueries.Column<>("id", true, VinylRecord::getId),
+            "title", new KeysetQueries.Column<>("title", false, VinylRecord::getTitle),
+            "artist", new KeysetQueries.Column<>("artist", false, VinylRecord::getArtist),
+            "releaseYear", new KeysetQueries.Column<>("release_year", true, VinylRecord::getReleaseYear),
+            "genre", new KeysetQueries.Column<>("genre", false, VinylRecord::getGenre),
+            "condition", new KeysetQueries.Column<>("condition", false, VinylRecord::getCondition)
+    );
+
+    private static final Object[] CSV_HEADER = {
+            "id", "title", "artist", "releaseYear", "genre", "purchaseSource",
+            "purchaseDate", "condition", "notes", "createdAt", "updatedAt"
+    };
+
+    private static final Argument<Page<VinylRecord>> PAGE_TYPE = new GenericArgument<Page<VinylRecord>>() {};
+
     private final RecordRepository recordRepository;
+    private final ReactiveRecordRepository reactiveRecordRepository;
+    private final KeysetQueries keysetQueries;
+    private final StreamingQueries streamingQueries;
+    private final ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+    private final SyncCache<?> cache;
+    private final QueryResultCache queryResultCache;
+    private final SetBasedWrites setBasedWrites;
+    // Bumped by onTableChanged before it evicts, so a load can tell whether an eviction ran while it was reading
+    private final AtomicLong evictions = new AtomicLong();
 
-    public RecordService(RecordRepository recordRepository) {
+    public RecordService(RecordRepository recordRepository, ReactiveRecordRepository reactiveRecordRepository,
+                         KeysetQueries keysetQueries,
+                         StreamingQueries streamingQueries,
+                         ApplicationEventPublisher<TableChangedEvent> eventPublisher,
+                         @Named(CACHE_NAME) SyncCache<?> cache,
+                         QueryResultCache queryResultCache,
+                         SetBasedWrites setBasedWrites) {
         this.recordRepository = recordRepository;
+        this.reactiveRecordRepository = reactiveRecordRepository;
+        this.keysetQueries = keysetQueries;
+        this.streamingQueries = streamingQueries;
+        this.eventPublisher = eventPublisher;
+        this.cache = cache;
+        this.queryResultCache = queryResultCache;
+        this.setBasedWrites = setBasedWrites;
     }
 
     @Transactional
@@ -42,64 +108,227 @@ public class RecordService {
         record.setCreatedAt(LocalDateTime.now());
         record.setUpdatedAt(LocalDateTime.now());
 
-        return recordRepository.save(record);
+        VinylRecord saved = recordRepository.save(record);
+        eventPublisher.publishEvent(new TableChangedEvent("vinyl_records", saved.getId()));
+        return saved;
     }
 
-    public Optional<VinylRecord> findById(Long id) {
-        return recordRepository.findById(id);
+    /**
+     * Read-through lookup: hits are served from the {@value #CACHE_NAME} cache, misses load from the
+     * database and populate it. Absent ids are not cached, so a later insert is visible immediately.
+     * A loaded row is only cached if no eviction for {@code vinyl_records} ran while it was being read; otherwise
+     * the eviction could run before the put and leave the old row cached. Evictions include those announced
+     * by other nodes, so this also covers writes committed elsewhere.
+     */
+    public Mono<VinylRecord> findById(Long id) {
+        return Mono.defer(() -> cache.get(id, VinylRecord.class)
+                .map(Mono::just)
+                .orElseGet(() -> {
+                    long evictionsBefore = evictions.get();
+                    return reactiveRecordRepository.findById(id)
+                            .doOnNext(entity -> cacheIfUnchanged(id, entity, evictionsBefore));
+                }));
     }
 
-    public Page<VinylRecord> findAll(Pageable pageable) {
-        return recordRepository.findAll(pageable);
+    private void cacheIfUnchanged(Long id, VinylRecord entity, long evictionsBefore) {
+        if (evictions.get() != evictionsBefore) {
+            return;
+        }
+        cache.put(id, entity);
+        // An eviction may have run between the check and the put; it bumped the counter first,
+        // so drop the entry again if the counter has moved
+        if (evictions.get() != evictionsBefore) {
+            cache.invalidate(id);
+        }
     }
 
-    public List<VinylRecord> findByGenre(Genre genre) {
-        return recordRepository.findByGenre(genre);
+    /**
+     * Drops cached entries once a write to {@code vinyl_records} has committed.
+     */
+    @TransactionalEventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (!"vinyl_records".equals(event.table())) {
+            return;
+        }
+        evictions.incrementAndGet();
+        if (event.id() != null) {
+            cache.invalidate(event.id());
+        } else {
+            cache.invalidateAll();
+        }
     }
 
-    public List<VinylRecord> search(String query) {
-        return recordRepository.searchByTitleOrArtist(QueryUtils.escapeLikePattern(query));
+    public Mono<Page<VinylRecord>> findAll(Pageable pageable, boolean estimateCount) {
+        return queryResultCache.getAsync("vinyl_records", "findAll",
+                List.of(QueryResultCache.pageableKey(pageable), estimateCount), PAGE_TYPE, () -> {
+                    Mono<Long> total = (estimateCount ? reactiveRecordRepository.estimateCount() : Mono.just(-1L))
+                            .flatMap(estimate -> estimate >= 0 ? Mono.just(estimate) : reactiveRecordRepository.count());
+                    return reactiveRecordRepository.list(pageable).collectList()
+                            .zipWith(total, (content, count) -> Page.of(content, pageable, count));
+                });
     }
 
-    @Transactional
+    public KeysetPage<VinylRecord> findPage(String sort, boolean descending, @Nullable Cursor after, int size) {
+        return keysetQueries.findPage("vinyl_records", VinylRecord.class, VinylRecord::getId,
+                sort, KEYSET_COLUMNS.get(sort), descending, after, size);
+    }
+
+    /**
+     * Pages through records matching every given filter; {@code null} filters are ignored.
+     * Year and date ranges are inclusive.
+     */
+    public Page<VinylRecord> query(@Nullable Genre genre, @Nullable RecordCondition condition,
+                                   @Nullable Integer yearFrom, @Nullable Integer yearTo,
+                                   @Nullable LocalDate purchasedFrom, @Nullable LocalDate purchasedTo,
+                                   @Nullable String text, Pageable pageable) {
+        PredicateSpecification<VinylRecord> specification = PredicateSpecification.where(null);
+        if (genre != null) {
+            specification = specification.and(RecordSpecifications.hasGenre(genre));
+        }
+        if (condition != null) {
+            specification = specification.and(RecordSpecifications.hasCondition(condition));
+        }
+        if (yearFrom != null) {
+            specification = specification.and(RecordSpecifications.releasedFrom(yearFrom));
+        }
+        if (yearTo != null) {
+            specification = specification.and(RecordSpecifications.releasedUntil(yearTo));
+        }
+        if (purchasedFrom != null) {
+            specification = specification.and(RecordSpecifications.purchasedFrom(purchasedFrom));
+        }
+        if (purchasedTo != null) {
+            specification = specification.and(RecordSpecifications.purchasedUntil(purchasedTo));
+        }
+        if (text != null && !text.isBlank()) {
+            specification = specification.and(RecordSpecifications.titleOrArtistContains(text.trim()));
+        }
+        return recordRepository.findAll(specification, pageable);
+    }
+
+    /**
+     * Streams the whole collection as CSV with the {@code RecordResponse} columns.
+     * Each row is encoded from the result set straight into a pooled buffer; no entities are built.
+     */
+    public Flux<ByteBuf> exportCsv(ByteBufAllocator allocator) {
+        Flux<ByteBuf> header = Flux.defer(() -> Flux.just(encodeCsvRow(allocator, CSV_HEADER)));
+        Flux<ByteBuf> rows = streamingQueries.stream(
+                "SELECT id, title, artist, release_year, genre, purchase_source, purchase_date,"
+                        + " condition, notes, created_at, updated_at FROM vinyl_records ORDER BY id",
+                List.of(),
+                resultSet -> encodeCsvRow(allocator, new Object[]{
+                        resultSet.getLong("id"),
+                        resultSet.getString("title"),
+                        resultSet.getString("artist"),
+                        resultSet.getInt("release_year"),
+                        resultSet.getString("genre"),
+                        resultSet.getString("purchase_source"),
+                        resultSet.getObject("purchase_date", LocalDate.class),
+                        resultSet.getString("condition"),
+                        resultSet.getString("notes"),
+                        resultSet.getObject("created_at", LocalDateTime.class),
+                        resultSet.getObject("updated_at", LocalDateTime.class)
+                }));
+        return header.concatWith(rows)
+                .doOnDiscard(ByteBuf.class, ByteBuf::release);
+    }
+
+    private static ByteBuf encodeCsvRow(ByteBufAllocator allocator, Object[] values) {
+        ByteBuf buffer = allocator.buffer(256);
+        try {
+            CsvEncoder.writeRow(buffer, values);
+            return buffer;
+        } catch (RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+    }
+
+    public Mono<List<VinylRecord>> findByGenre(Genre genre) {
+        return queryResultCache.getAsync("vinyl_records", "findByGenre", List.of(genre),
+                Argument.listOf(VinylRecord.class),
+                () -> reactiveRecordRepository.findByGenre(genre).collectList().map(List::copyOf));
+    }
+
+    /**
+     * Case-insensitive, so differently cased queries share one cache entry.
+     */
+    public Mono<List<VinylRecord>> search(String query) {
+        return queryResultCache.getAsync("vinyl_records", "search", List.of(query.toLowerCase()),
+                Argument.listOf(VinylRecord.class),
+                () -> reactiveRecordRepository.searchByTitleOrArtist(QueryUtils.escapeLikePattern(query))
+                        .collectList().map(List::copyOf));
+    }
+
+    public Mono<List<VinylRecord>> searchRanked(String query, int limit) {
+        return queryResultCache.getAsync("vinyl_records", "searchRanked", List.of(query.toLowerCase(), limit),
+                Argument.listOf(VinylRecord.class),
+                () -> reactiveRecordRepository.searchRanked(query, limit).collectList().map(List::copyOf));
+    }
+
+    /**
+     * Writes only the provided fields in a single {@code UPDATE ... RETURNING} round trip.
+     */
     public VinylRecord update(Long id, RecordUpdateRequest request) {
-        VinylRecord record = recordRepository.findById(id)
+        StringBuilder sql = new StringBuilder("UPDATE vinyl_records SET updated_at = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(LocalDateTime.now());
+        appendChanges(sql, parameters, request);
+        sql.append(" WHERE id = ? RETURNING *");
+        parameters.add(id);
+        return setBasedWrites.updateReturning("vinyl_records", id, sql.toString(), parameters, VinylRecord.class)
                 .orElseThrow(() -> new NotFoundException("VinylRecord", id));
+    }
 
-        if (request.title() != null) {
-            record.setTitle(request.title().trim());
+    /**
+     * Appends a {@code , column = ?} assignment for every non-null field of {@code changes}.
+     *
+     * @return the number of assignments appended
+     */
+    static int appendChanges(StringBuilder sql, List<Object> parameters, RecordUpdateRequest changes) {
+        int before = parameters.size();
+        if (changes.title() != null) {
+            sql.append(", title = ?");
+            parameters.add(changes.title().trim());
         }
-        if (request.artist() != null) {
-            record.setArtist(request.artist().trim());
+        if (changes.artist() != null) {
+            sql.append(", artist = ?");
+            parameters.add(changes.artist().trim());
         }
-        if (request.releaseYear() != null) {
-            record.setReleaseYear(request.releaseYear());
+        if (changes.releaseYear() != null) {
+            sql.append(", release_year = ?");
+            parameters.add(changes.releaseYear());
         }
-        if (request.genre() != null) {
-            record.setGenre(request.genre());
+        if (changes.genre() != null) {
+            sql.append(", genre = ?");
+            parameters.add(changes.genre().name());
         }
-        if (request.purchaseSource() != null) {
-            record.setPurchaseSource(request.purchaseSource().trim().isEmpty() ? null : request.purchaseSource().trim());
+        if (changes.purchaseSource() != null) {
+            sql.append(", purchase_source = ?");
+            parameters.add(changes.purchaseSource().trim().isEmpty() ? null : changes.purchaseSource().trim());
         }
-        if (request.purchaseDate() != null) {
-            record.setPurchaseDate(request.purchaseDate());
+        if (changes.purchaseDate() != null) {
+            sql.append(", purchase_date = ?");
+            parameters.add(changes.purchaseDate());
         }
-        if (request.condition() != null) {
-            record.setCondition(request.condition());
+        if (changes.condition() != null) {
+            sql.append(", condition = ?");
+            parameters.add(changes.condition().name());
         }
-        if (request.notes() != null) {
-            record.setNotes(request.notes().trim().isEmpty() ? null : request.notes().trim());
+        if (changes.notes() != null) {
+            sql.append(", notes = ?");
+            parameters.add(changes.notes().trim().isEmpty() ? null : changes.notes().trim());
         }
-        record.setUpdatedAt(LocalDateTime.now());
-
-        return recordRepository.update(record);
+        return parameters.size() - before;
     }
 
-    @Transactional
+    /**
+     * Deletes in one {@code DELETE ... RETURNING} round trip; no returned id means the record did not exist.
+     */
     public void delete(Long id) {
-        VinylRecord record = recordRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("VinylRecord", id));
-        recordRepository.delete(record);
+        if (setBasedWrites.deleteByIds("vinyl_records", List.of(id)).isEmpty()) {
+            throw new NotFoundException("VinylRecord", id);
+        }
     }
 
 }
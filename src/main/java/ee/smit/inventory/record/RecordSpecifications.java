@@ -0,0 +1,51 @@
+package ee.smit.inventory.record;
+
+import ee.smit.inventory.common.QueryUtils;
+import io.micronaut.data.repository.jpa.criteria.PredicateSpecification;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria building blocks for {@link RecordRepository#findAll(PredicateSpecification, io.micronaut.data.model.Pageable)}.
+ * Each filter is a separate specification so callers can AND together whichever ones were requested
+ * and the database receives a single predicate.
+ */
+public final class RecordSpecifications {
+
+    private RecordSpecifications() {}
+
+    public static PredicateSpecification<VinylRecord> hasGenre(Genre genre) {
+        return (root, criteriaBuilder) -> criteriaBuilder.equal(root.get("genre"), genre);
+    }
+
+    public static PredicateSpecification<VinylRecord> hasCondition(RecordCondition condition) {
+        return (root, criteriaBuilder) -> criteriaBuilder.equal(root.get("condition"), condition);
+    }
+
+    public static PredicateSpecification<VinylRecord> releasedFrom(int year) {
+        return (root, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("releaseYear"), year);
+    }
+
+    public static PredicateSpecification<VinylRecord> releasedUntil(int year) {
+        return (root, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("releaseYear"), year);
+    }
+
+    public static PredicateSpecification<VinylRecord> purchasedFrom(LocalDate date) {
+        return (root, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("purchaseDate"), date);
+    }
+
+    public static PredicateSpecification<VinylRecord> purchasedUntil(LocalDate date) {
+        return (root, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("purchaseDate"), date);
+    }
+
+    /**
+     * Case-insensitive substring match on title or artist, using the same {@code LOWER(column)}
+     * expressions as the trigram indexes from V11.
+     */
+    public static PredicateSpecification<VinylRecord> titleOrArtistContains(String text) {
+        String pattern = "%" + QueryUtils.escapeLikePattern(text.toLowerCase()) + "%";
+        return (root, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), pattern),
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("artist")), pattern));
+    }
+}
@@ -1,5 +1,6 @@
 package ee.smit.inventory.security;
 
+import io.micronaut.context.annotation.Value;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpRequest;
@@ -10,6 +11,7 @@ import io.micronaut.security.authentication.provider.HttpRequestAuthenticationPr
 import jakarta.inject.Singleton;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,11 +21,26 @@ public class AuthenticationProviderUserPassword<B> implements HttpRequestAuthent
     private static final BCryptPasswordEncoder PASSWORD_ENCODER = new BCryptPasswordEncoder();
 
     // Passwords hashed with BCrypt (mart123, katrin123)
-    private static final Map<String, UserCredentials> USERS = Map.of(
+    private static final Map<String, UserCredentials> DEFAULT_USERS = Map.of(
             "mart", new UserCredentials("$2a$12$AnBLNLp0.JrvxnnEh0IGQOFuGYrwCIIVfXCj1tg6DsoFVLTHheLhW", List.of(Roles.ROLE_PARTS)),
             "katrin", new UserCredentials("$2a$12$2l6BOapDlZcMruaGQfVFeOM.pfICYR9MZ7Kz91KBSdSZnq55DT52S", List.of(Roles.ROLE_RECORDS))
     );
 
+    private final Map<String, UserCredentials> users;
+
+    /**
+     * The admin account only exists when a BCrypt hash is configured for it (env ADMIN_PASSWORD_HASH).
+     */
+    public AuthenticationProviderUserPassword(
+            @Value("${inventory.security.admin.username:admin}") String adminUsername,
+            @Nullable @Value("${inventory.security.admin.password-hash:}") String adminPasswordHash) {
+        Map<String, UserCredentials> users = new HashMap<>(DEFAULT_USERS);
+        if (adminPasswordHash != null && !adminPasswordHash.isBlank()) {
+            users.put(adminUsername, new UserCredentials(adminPasswordHash, List.of(Roles.ROLE_ADMIN)));
+        }
+        this.users = Map.copyOf(users);
+    }
+
     @Override
     public @NonNull AuthenticationResponse authenticate(
             @Nullable HttpRequest<B> httpRequest,
@@ -32,7 +49,7 @@ public class AuthenticationProviderUserPassword<B> implements HttpRequestAuthent
         String username = authenticationRequest.getIdentity();
         String password = authenticationRequest.getSecret();
 
-        UserCredentials user = USERS.get(username);
+        UserCredentials user = users.get(username);
 
         if (user == null) {
             return AuthenticationResponse.failure(AuthenticationFailureReason.USER_NOT_FOUND);
@@ -3,6 +3,7 @@ package ee.smit.inventory.security;
 public final class Roles {
     public static final String ROLE_PARTS = "ROLE_PARTS";
     public static final String ROLE_RECORDS = "ROLE_RECORDS";
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
 
     private Roles() {}
 }
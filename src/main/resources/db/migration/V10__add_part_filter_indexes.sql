@@ -0,0 +1,7 @@
+-- Indexes for the combined part filter (/api/parts/query).
+-- Type and condition are the most common pair; quantity ranges usually come with a type.
+CREATE INDEX idx_parts_type_condition_id ON parts(type, condition, id);
+CREATE INDEX idx_parts_type_quantity ON parts(type, quantity);
+
+-- LIKE 'prefix%' can only use a btree under the C collation or with text_pattern_ops.
+CREATE INDEX idx_parts_location_pattern ON parts(location text_pattern_ops);
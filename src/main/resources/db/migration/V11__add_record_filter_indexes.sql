@@ -0,0 +1,9 @@
+-- Indexes for the combined record filter (/api/records/query).
+-- Genre is the usual leading filter, most often narrowed by a release-year range.
+CREATE INDEX idx_vinyl_records_genre_release_year ON vinyl_records(genre, release_year);
+CREATE INDEX idx_vinyl_records_purchase_date ON vinyl_records(purchase_date);
+
+-- Trigram indexes (pg_trgm is enabled in V5) let the planner answer the leading-wildcard
+-- LOWER(title|artist) LIKE '%...%' text filter and /search with a bitmap index scan.
+CREATE INDEX idx_vinyl_records_title_trgm ON vinyl_records USING GIN (LOWER(title) gin_trgm_ops);
+CREATE INDEX idx_vinyl_records_artist_trgm ON vinyl_records USING GIN (LOWER(artist) gin_trgm_ops);
@@ -0,0 +1,66 @@
+-- Collection ETags are fingerprinted by row count and a per-table version. The version is bumped by the
+-- statement triggers from V8 while they hold the row lock on the table's '*' counter, so every committed write
+-- statement is visible as a new version. INSERT and DELETE already took that lock for the row count; UPDATEs
+-- now take it too, until commit. Statements that touch no rows skip the triggers' work and take no lock.
+ALTER TABLE table_counters ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE FUNCTION bump_table_version(p_table VARCHAR) RETURNS void
+LANGUAGE sql AS $$
+    INSERT INTO table_counters (table_name, group_key, row_count, version)
+    VALUES (p_table, '*', 0, 1)
+    ON CONFLICT (table_name, group_key)
+    DO UPDATE SET version = table_counters.version + 1;
+$$;
+
+-- The '*' row is locked first, before apply_counter_deltas touches the per-group rows.
+CREATE OR REPLACE FUNCTION count_parts_rows() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF EXISTS (SELECT FROM new_rows) THEN
+            PERFORM bump_table_version('parts');
+            PERFORM apply_counter_deltas('parts', ARRAY(SELECT type FROM new_rows), '{}');
+        END IF;
+    ELSIF TG_OP = 'UPDATE' THEN
+        IF EXISTS (SELECT FROM new_rows) THEN
+            PERFORM bump_table_version('parts');
+            PERFORM apply_counter_deltas('parts', ARRAY(SELECT type FROM new_rows), ARRAY(SELECT type FROM old_rows));
+        END IF;
+    ELSIF TG_OP = 'DELETE' THEN
+        IF EXISTS (SELECT FROM old_rows) THEN
+            PERFORM bump_table_version('parts');
+            PERFORM apply_counter_deltas('parts', '{}', ARRAY(SELECT type FROM old_rows));
+        END IF;
+    ELSE
+        PERFORM bump_table_version('parts');
+        UPDATE table_counters SET row_count = 0 WHERE table_name = 'parts';
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION count_vinyl_records_rows() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF EXISTS (SELECT FROM new_rows) THEN
+            PERFORM bump_table_version('vinyl_records');
+            PERFORM apply_counter_deltas('vinyl_records', ARRAY(SELECT genre FROM new_rows), '{}');
+        END IF;
+    ELSIF TG_OP = 'UPDATE' THEN
+        IF EXISTS (SELECT FROM new_rows) THEN
+            PERFORM bump_table_version('vinyl_records');
+            PERFORM apply_counter_deltas('vinyl_records', ARRAY(SELECT genre FROM new_rows), ARRAY(SELECT genre FROM old_rows));
+        END IF;
+    ELSIF TG_OP = 'DELETE' THEN
+        IF EXISTS (SELECT FROM old_rows) THEN
+            PERFORM bump_table_version('vinyl_records');
+            PERFORM apply_counter_deltas('vinyl_records', '{}', ARRAY(SELECT genre FROM old_rows));
+        END IF;
+    ELSE
+        PERFORM bump_table_version('vinyl_records');
+        UPDATE table_counters SET row_count = 0 WHERE table_name = 'vinyl_records';
+    END IF;
+    RETURN NULL;
+END;
+$$;
@@ -0,0 +1,25 @@
+-- Bumping the version on the table's '*' counter row made every UPDATE take that row lock until commit, so all
+-- concurrent writers of a table queued behind each other. The version now lives in 16 slots per table; a session
+-- always bumps the slot of its backend pid, so writers on different connections rarely share a row lock.
+-- The table version is the sum of its slots. Every committed bump raises it, and a later snapshot sees every
+-- bump an earlier one saw, so it only ever moves forward. The '*' row is again only locked by INSERT, DELETE and
+-- TRUNCATE, for the row count, as before V12.
+CREATE TABLE table_versions (
+    table_name VARCHAR(64) NOT NULL,
+    slot SMALLINT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (table_name, slot)
+);
+
+INSERT INTO table_versions (table_name, slot, version)
+SELECT table_name, 0, version FROM table_counters WHERE group_key = '*';
+
+ALTER TABLE table_counters DROP COLUMN version;
+
+CREATE OR REPLACE FUNCTION bump_table_version(p_table VARCHAR) RETURNS void
+LANGUAGE sql AS $$
+    INSERT INTO table_versions (table_name, slot, version)
+    VALUES (p_table, pg_backend_pid() % 16, 1)
+    ON CONFLICT (table_name, slot)
+    DO UPDATE SET version = table_versions.version + 1;
+$$;
@@ -0,0 +1,4 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_parts_name_trgm ON parts USING gin (LOWER(name) gin_trgm_ops);
+CREATE INDEX idx_parts_description_trgm ON parts USING gin (LOWER(description) gin_trgm_ops);
@@ -0,0 +1,7 @@
+ALTER TABLE vinyl_records ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', COALESCE(title, '')), 'A') ||
+    setweight(to_tsvector('english', COALESCE(artist, '')), 'A') ||
+    setweight(to_tsvector('english', COALESCE(notes, '')), 'C')
+) STORED;
+
+CREATE INDEX idx_vinyl_records_search_vector ON vinyl_records USING gin (search_vector);
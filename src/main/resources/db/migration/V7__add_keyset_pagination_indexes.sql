@@ -0,0 +1,19 @@
+-- Composite (sort column, id) indexes back keyset pagination for every sortable field.
+-- They also cover the single-column lookups, so the V3 indexes become redundant.
+DROP INDEX idx_parts_type;
+DROP INDEX idx_parts_name;
+DROP INDEX idx_vinyl_records_genre;
+DROP INDEX idx_vinyl_records_title;
+DROP INDEX idx_vinyl_records_artist;
+
+CREATE INDEX idx_parts_name_id ON parts(name, id);
+CREATE INDEX idx_parts_type_id ON parts(type, id);
+CREATE INDEX idx_parts_location_id ON parts(location, id);
+CREATE INDEX idx_parts_quantity_id ON parts(quantity, id);
+CREATE INDEX idx_parts_condition_id ON parts(condition, id);
+
+CREATE INDEX idx_vinyl_records_title_id ON vinyl_records(title, id);
+CREATE INDEX idx_vinyl_records_artist_id ON vinyl_records(artist, id);
+CREATE INDEX idx_vinyl_records_release_year_id ON vinyl_records(release_year, id);
+CREATE INDEX idx_vinyl_records_genre_id ON vinyl_records(genre, id);
+CREATE INDEX idx_vinyl_records_condition_id ON vinyl_records(condition, id);
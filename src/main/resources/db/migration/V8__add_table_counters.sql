@@ -0,0 +1,84 @@
+-- Row counts maintained by statement-level triggers so paginated endpoints never run count(*).
+-- group_key '*' holds the table total; other keys hold per-type (parts) or per-genre (vinyl_records) counts.
+CREATE TABLE table_counters (
+    table_name VARCHAR(64) NOT NULL,
+    group_key VARCHAR(50) NOT NULL,
+    row_count BIGINT NOT NULL,
+    PRIMARY KEY (table_name, group_key)
+);
+
+CREATE FUNCTION apply_counter_deltas(p_table VARCHAR, p_added VARCHAR[], p_removed VARCHAR[]) RETURNS void
+LANGUAGE sql AS $$
+    INSERT INTO table_counters (table_name, group_key, row_count)
+    SELECT p_table, d.group_key, SUM(d.delta)
+    FROM (
+        SELECT '*' AS group_key, cardinality(p_added) - cardinality(p_removed) AS delta
+        UNION ALL
+        SELECT added, 1 FROM unnest(p_added) AS added
+        UNION ALL
+        SELECT removed, -1 FROM unnest(p_removed) AS removed
+    ) d
+    GROUP BY d.group_key
+    HAVING SUM(d.delta) <> 0
+    ON CONFLICT (table_name, group_key)
+    DO UPDATE SET row_count = table_counters.row_count + EXCLUDED.row_count;
+$$;
+
+CREATE FUNCTION count_parts_rows() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM apply_counter_deltas('parts', ARRAY(SELECT type FROM new_rows), '{}');
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM apply_counter_deltas('parts', ARRAY(SELECT type FROM new_rows), ARRAY(SELECT type FROM old_rows));
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM apply_counter_deltas('parts', '{}', ARRAY(SELECT type FROM old_rows));
+    ELSE
+        UPDATE table_counters SET row_count = 0 WHERE table_name = 'parts';
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION count_vinyl_records_rows() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM apply_counter_deltas('vinyl_records', ARRAY(SELECT genre FROM new_rows), '{}');
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM apply_counter_deltas('vinyl_records', ARRAY(SELECT genre FROM new_rows), ARRAY(SELECT genre FROM old_rows));
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM apply_counter_deltas('vinyl_records', '{}', ARRAY(SELECT genre FROM old_rows));
+    ELSE
+        UPDATE table_counters SET row_count = 0 WHERE table_name = 'vinyl_records';
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER parts_count_insert AFTER INSERT ON parts
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_parts_rows();
+CREATE TRIGGER parts_count_update AFTER UPDATE ON parts
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_parts_rows();
+CREATE TRIGGER parts_count_delete AFTER DELETE ON parts
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION count_parts_rows();
+CREATE TRIGGER parts_count_truncate AFTER TRUNCATE ON parts
+    FOR EACH STATEMENT EXECUTE FUNCTION count_parts_rows();
+
+CREATE TRIGGER vinyl_records_count_insert AFTER INSERT ON vinyl_records
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_vinyl_records_rows();
+CREATE TRIGGER vinyl_records_count_update AFTER UPDATE ON vinyl_records
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_vinyl_records_rows();
+CREATE TRIGGER vinyl_records_count_delete AFTER DELETE ON vinyl_records
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION count_vinyl_records_rows();
+CREATE TRIGGER vinyl_records_count_truncate AFTER TRUNCATE ON vinyl_records
+    FOR EACH STATEMENT EXECUTE FUNCTION count_vinyl_records_rows();
+
+INSERT INTO table_counters (table_name, group_key, row_count)
+SELECT 'parts', '*', COUNT(*) FROM parts
+UNION ALL
+SELECT 'parts', type, COUNT(*) FROM parts GROUP BY type
+UNION ALL
+SELECT 'vinyl_records', '*', COUNT(*) FROM vinyl_records
+UNION ALL
+SELECT 'vinyl_records', genre, COUNT(*) FROM vinyl_records GROUP BY genre;
@@ -0,0 +1,28 @@
+-- Staging table for CSV record imports loaded with COPY. Rows are inserted, mapped and deleted
+-- inside the importing transaction, so they are never visible to other sessions and need no WAL.
+CREATE UNLOGGED TABLE vinyl_records_staging (
+    line_number BIGINT GENERATED ALWAYS AS IDENTITY,
+    title TEXT,
+    artist TEXT,
+    release_year TEXT,
+    genre TEXT,
+    purchase_source TEXT,
+    purchase_date TEXT,
+    condition TEXT,
+    notes TEXT,
+    mapped_release_year INT,
+    mapped_genre VARCHAR(50),
+    mapped_purchase_date DATE,
+    mapped_condition VARCHAR(50),
+    errors JSONB
+);
+
+-- An explicit format keeps the result independent of the session's DateStyle; to_date is STABLE, so this is too
+CREATE FUNCTION try_cast_date(p_value TEXT) RETURNS DATE
+LANGUAGE plpgsql STABLE AS $$
+BEGIN
+    RETURN to_date(p_value, 'YYYY-MM-DD');
+EXCEPTION WHEN others THEN
+    RETURN NULL;
+END;
+$$;
@@ -0,0 +1,41 @@
+package ee.smit.inventory;
+
+/**
+ * Points every test application context at one shared PostgreSQL container.
+ * A {@code jdbc:tc:} URL cannot be used here: the JDBC and R2DBC datasources would each start their own
+ * container, and the R2DBC one would never see the Flyway migrations.
+ */
+
+import io.micronaut.context.ApplicationContextBuilder;
+import io.micronaut.context.ApplicationContextConfigurer;
+import io.micronaut.context.annotation.ContextConfigurer;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.Map;
+
+@ContextConfigurer
+public class TestDatabaseConfigurer implements ApplicationContextConfigurer {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Override
+    public void configure(ApplicationContextBuilder builder) {
+        synchronized (POSTGRES) {
+            if (!POSTGRES.isRunning()) {
+                POSTGRES.start();
+            }
+        }
+        String r2dbcUrl = "r2dbc:postgresql://" + POSTGRES.getHost() + ":" + POSTGRES.getFirstMappedPort()
+                + "/" + POSTGRES.getDatabaseName();
+        builder.properties(Map.of(
+                "datasources.default.url", POSTGRES.getJdbcUrl(),
+                "datasources.default.username", POSTGRES.getUsername(),
+                "datasources.default.password", POSTGRES.getPassword(),
+                "r2dbc.datasources.default.url", r2dbcUrl,
+                "r2dbc.datasources.default.username", POSTGRES.getUsername(),
+                "r2dbc.datasources.default.password", POSTGRES.getPassword()));
+    }
+}
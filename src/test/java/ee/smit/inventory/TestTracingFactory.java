@@ -0,0 +1,25 @@
+package ee.smit.inventory;
+
+/**
+ * Collects the spans of every test application context in memory, so tests can assert on traces.
+ */
+
+import io.micronaut.context.annotation.Factory;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import jakarta.inject.Singleton;
+
+@Factory
+public class TestTracingFactory {
+
+    @Singleton
+    InMemorySpanExporter spanExporter() {
+        return InMemorySpanExporter.create();
+    }
+
+    @Singleton
+    SpanProcessor spanProcessor(InMemorySpanExporter spanExporter) {
+        return SimpleSpanProcessor.create(spanExporter);
+    }
+}
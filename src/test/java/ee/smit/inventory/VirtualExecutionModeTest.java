@@ -0,0 +1,122 @@
+package ee.smit.inventory;
+
+/**
+ * Runs the blocking routes in virtual execution mode under concurrent load and fails if any request
+ * thread pinned its carrier, as reported by the {@code jdk.VirtualThreadPinned} JFR event.
+ */
+
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.part.PartCondition;
+import ee.smit.inventory.part.PartType;
+import ee.smit.inventory.part.dto.PartCreateRequest;
+import ee.smit.inventory.part.dto.PartResponse;
+import ee.smit.inventory.part.dto.PartUpdateRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.security.token.render.BearerAccessRefreshToken;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest
+@Property(name = "inventory.execution.mode", value = "virtual")
+@Property(name = "inventory.execution.max-concurrency", value = "4")
+class VirtualExecutionModeTest {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+    private static final int CLIENTS = 16;
+    private static final int ROUNDS = 10;
+
+    @Inject
+    @Client("/")
+    HttpClient client;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Test
+    void should_not_pin_carrier_threads_on_the_blocking_routes() throws Exception {
+        // given - one round before recording, so class loading and pool start-up are not counted
+        BlockingHttpClient http = client.toBlocking();
+        String token = loginAndGetToken(http);
+        exercise(http, token, 0);
+
+        // when
+        List<RecordedEvent> pinned;
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            // Clients run on platform threads, so every virtual thread in the recording is a request
+            try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+                List<Future<?>> results = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    int clientIndex = i;
+                    results.add(clients.submit(() -> {
+                        for (int round = 0; round < ROUNDS; round++) {
+                            exercise(http, token, clientIndex * ROUNDS + round);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            }
+            recording.stop();
+            pinned = pinnedEvents(recording);
+        }
+
+        // then
+        assertThat(meterRegistry.find("inventory.requests.active").gauge()).isNotNull();
+        assertThat(pinned).as("virtual threads pinned their carrier").isEmpty();
+    }
+
+    private static void exercise(BlockingHttpClient http, String token, int i) {
+        PartCreateRequest request = new PartCreateRequest("Pinning check " + i, null, PartType.OTHER, "Garage",
+                1, PartCondition.NEW, null);
+        Long id = http.retrieve(HttpRequest.POST("/api/parts", request).bearerAuth(token), PartResponse.class).id();
+        http.retrieve(HttpRequest.PUT("/api/parts/" + id,
+                new PartUpdateRequest(null, null, null, null, 2, null, null)).bearerAuth(token), PartResponse.class);
+        http.exchange(HttpRequest.GET("/api/parts/query?q=pinning&size=10").bearerAuth(token), String.class);
+        http.retrieve(HttpRequest.POST("/api/parts/bulk", List.of(request)).bearerAuth(token),
+                BulkImportResponse.class);
+        http.exchange(HttpRequest.DELETE("/api/parts/" + id).bearerAuth(token));
+    }
+
+    private static List<RecordedEvent> pinnedEvents(Recording recording) throws IOException {
+        Path file = Files.createTempFile("virtual-thread-pinning", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> PINNED.equals(event.getEventType().getName()))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String loginAndGetToken(BlockingHttpClient http) {
+        return http.retrieve(HttpRequest.POST("/login", Map.of("username", "mart", "password", "mart123")),
+                BearerAccessRefreshToken.class).getAccessToken();
+    }
+}
@@ -5,9 +5,11 @@ package ee.smit.inventory.part;
  * Tests HTTP endpoints for bicycle parts CRUD operations using Micronaut HTTP client.
  */
 
+import ee.smit.inventory.common.TableChangedEvent;
 import ee.smit.inventory.part.dto.PartCreateRequest;
 import ee.smit.inventory.part.dto.PartResponse;
 import ee.smit.inventory.part.dto.PartUpdateRequest;
+import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
@@ -16,10 +18,13 @@ import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.security.token.render.BearerAccessRefreshToken;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,9 +40,20 @@ class PartControllerTest {
     @Inject
     PartRepository partRepository;
 
+    @Inject
+    ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Inject
+    TransactionOperations<Connection> transactionOperations;
+
     @BeforeEach
     void setUp() {
-        partRepository.deleteAll();
+        // deleteAll bypasses the services, so announce it to the caches the way they do
+        transactionOperations.executeWrite(status -> {
+            partRepository.deleteAll();
+            eventPublisher.publishEvent(new TableChangedEvent("parts"));
+            return null;
+        });
     }
 
     @Test
@@ -165,6 +181,25 @@ class PartControllerTest {
         assertThat(response[0].name()).contains("Shimano");
     }
 
+    @Test
+    void should_export_filtered_parts_as_ndjson() {
+        // given
+        String token = loginAndGetToken("mart", "mart123");
+        createTestPartWithType("Brake 1", PartType.BRAKE, token);
+        createTestPartWithType("Brake 2", PartType.BRAKE, token);
+        createTestPartWithType("Tire 1", PartType.TIRE, token);
+
+        // when
+        HttpResponse<String> response = client.toBlocking()
+                .exchange(HttpRequest.GET("/api/parts/export?type=BRAKE").bearerAuth(token), String.class);
+
+        // then
+        assertThat(response.getContentType()).hasValueSatisfying(type -> assertThat(type.toString()).isEqualTo("application/x-ndjson"));
+        List<String> lines = response.body().lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines).allMatch(line -> line.startsWith("{") && line.contains("\"type\":\"BRAKE\""));
+    }
+
     private Long createTestPartAndGetId(String token) {
         PartCreateRequest request = new PartCreateRequest(
                 "Test Part",
@@ -5,29 +5,49 @@ package ee.smit.inventory.part;
  * Tests complete workflows including validation errors and error responses.
  */
 
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.common.BulkWriteResponse;
+import ee.smit.inventory.common.FacetsResponse;
+import ee.smit.inventory.common.TableChangedEvent;
 import ee.smit.inventory.exception.ErrorResponse;
 import ee.smit.inventory.part.dto.PartCreateRequest;
 import ee.smit.inventory.part.dto.PartResponse;
 import ee.smit.inventory.part.dto.PartUpdateRequest;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.core.type.Argument;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.client.HttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.security.token.render.BearerAccessRefreshToken;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
 
 @MicronautTest
 class PartIntegrationTest {
@@ -39,9 +59,32 @@ class PartIntegrationTest {
     @Inject
     PartRepository partRepository;
 
+    @Inject
+    ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Inject
+    TransactionOperations<Connection> transactionOperations;
+
+    @Inject
+    JdbcOperations jdbcOperations;
+
+    @Value("${datasources.default.url}")
+    String url;
+
+    @Value("${datasources.default.username}")
+    String username;
+
+    @Value("${datasources.default.password}")
+    String password;
+
     @BeforeEach
     void setUp() {
-        partRepository.deleteAll();
+        // deleteAll bypasses the services, so announce it to the caches the way they do
+        transactionOperations.executeWrite(status -> {
+            partRepository.deleteAll();
+            eventPublisher.publishEvent(new TableChangedEvent("parts"));
+            return null;
+        });
     }
 
     @Nested
@@ -300,6 +343,24 @@ class PartIntegrationTest {
             assertThat(updated.description()).isNull();
             assertThat(updated.notes()).isNull();
         }
+
+        @Test
+        void should_return_the_stored_updated_at_from_update() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            PartResponse created = client.toBlocking().retrieve(HttpRequest.POST("/api/parts",
+                    new PartCreateRequest("Test Part", null, PartType.OTHER, "Garage", 5, PartCondition.NEW, null))
+                    .bearerAuth(token), PartResponse.class);
+
+            // when
+            PartResponse updated = client.toBlocking().retrieve(HttpRequest.PUT("/api/parts/" + created.id(),
+                    new PartUpdateRequest(null, null, null, null, 6, null, null)).bearerAuth(token), PartResponse.class);
+            PartResponse stored = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/parts/" + created.id()).bearerAuth(token), PartResponse.class);
+
+            // then
+            assertThat(stored.updatedAt()).isEqualTo(updated.updatedAt()).isAfter(created.updatedAt());
+        }
     }
 
     @Nested
@@ -342,6 +403,628 @@ class PartIntegrationTest {
         }
     }
 
+    @Nested
+    class CursorPaginationTests {
+
+        @Test
+        void should_walk_all_pages_by_cursor() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            for (String name : List.of("Echo", "Alpha", "Delta", "Bravo", "Charlie")) {
+                createPartWithDetails(name, PartType.OTHER, token);
+            }
+
+            // when
+            List<Object> names = new ArrayList<>();
+            String after = null;
+            boolean last = false;
+            while (!last) {
+                String uri = "/api/parts/cursor?size=2&sort=name" + (after != null ? "&after=" + after : "");
+                Map<String, Object> page = client.toBlocking()
+                        .retrieve(HttpRequest.GET(uri).bearerAuth(token), Argument.of(Map.class, String.class, Object.class));
+                for (Object item : (List<?>) page.get("content")) {
+                    names.add(((Map<?, ?>) item).get("name"));
+                }
+                after = (String) page.get("nextCursor");
+                last = (Boolean) page.get("last");
+            }
+
+            // then
+            assertThat(names).containsExactly("Alpha", "Bravo", "Charlie", "Delta", "Echo");
+            assertThat(after).isNull();
+        }
+
+        @Test
+        void should_return_400_for_cursor_from_different_sort() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            createPartWithDetails("Alpha", PartType.OTHER, token);
+            createPartWithDetails("Bravo", PartType.OTHER, token);
+            Map<String, Object> page = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/parts/cursor?size=1&sort=name").bearerAuth(token),
+                            Argument.of(Map.class, String.class, Object.class));
+            String after = (String) page.get("nextCursor");
+
+            // when
+            Throwable throwable = catchThrowable(() ->
+                    client.toBlocking().retrieve(HttpRequest.GET("/api/parts/cursor?size=1&sort=quantity&after=" + after).bearerAuth(token)));
+
+            // then
+            assertThat(throwable).isInstanceOf(HttpClientResponseException.class);
+            HttpClientResponseException e = (HttpClientResponseException) throwable;
+            assertThat(e.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+        }
+
+        @Test
+        void should_return_400_for_malformed_cursor() {
+            String token = loginAndGetToken("mart", "mart123");
+
+            Throwable throwable = catchThrowable(() ->
+                    client.toBlocking().retrieve(HttpRequest.GET("/api/parts/cursor?after=not-a-cursor").bearerAuth(token)));
+
+            assertThat(throwable).isInstanceOf(HttpClientResponseException.class);
+            HttpClientResponseException e = (HttpClientResponseException) throwable;
+            assertThat(e.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+        }
+    }
+
+    @Nested
+    class BulkImportTests {
+
+        @Test
+        void should_import_json_array_and_report_invalid_items() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            List<PartCreateRequest> requests = List.of(
+                    new PartCreateRequest("Brake 1", null, PartType.BRAKE, "Garage", 2, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake 2", null, PartType.BRAKE, "Garage", 0, PartCondition.NEW, null),
+                    new PartCreateRequest("Tire 1", null, PartType.TIRE, "Basement", 4, PartCondition.GOOD, null)
+            );
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/parts/bulk", requests).bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.received()).isEqualTo(3);
+            assertThat(response.inserted()).isEqualTo(2);
+            assertThat(response.failed()).isEqualTo(1);
+            assertThat(response.errors()).hasSize(1);
+            assertThat(response.errors().get(0).index()).isEqualTo(1);
+            assertThat(response.errors().get(0).errors()).containsKey("quantity");
+            assertThat(partRepository.count()).isEqualTo(2);
+        }
+
+        @Test
+        void should_import_newline_delimited_json() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            String body = """
+                    {"name":"Pump 1","type":"PUMP","location":"Garage","quantity":1,"condition":"NEW"}
+                    {"name":"Pump 2","type":"PUMP","location":"Garage","quantity":3,"condition":"FAIR"}
+                    """;
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/parts/bulk", body)
+                            .contentType(MediaType.APPLICATION_JSON_STREAM_TYPE)
+                            .bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.inserted()).isEqualTo(2);
+            assertThat(response.failed()).isZero();
+            assertThat(partRepository.findByType(PartType.PUMP)).hasSize(2);
+        }
+
+        @Test
+        void should_reimport_an_export_sent_as_ndjson() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            List<PartCreateRequest> requests = List.of(
+                    new PartCreateRequest("Frame 1", "Steel", PartType.FRAME, "Garage", 2, PartCondition.NEW, null),
+                    new PartCreateRequest("Frame 2", null, PartType.FRAME, "Basement", 1, PartCondition.FAIR, "Rusty")
+            );
+            client.toBlocking().retrieve(HttpRequest.POST("/api/parts/bulk", requests).bearerAuth(token), BulkImportResponse.class);
+            String export = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/parts/export").bearerAuth(token), String.class);
+            // start again from an empty table
+            setUp();
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/parts/bulk", export)
+                            .contentType("application/x-ndjson")
+                            .bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.inserted()).isEqualTo(2);
+            assertThat(response.failed()).isZero();
+            assertThat(partRepository.findByType(PartType.FRAME))
+                    .extracting(Part::getName, Part::getNotes)
+                    .containsExactlyInAnyOrder(tuple("Frame 1", null), tuple("Frame 2", "Rusty"));
+        }
+
+        @Test
+        void should_report_an_unreadable_ndjson_line_and_import_the_rest() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            String body = """
+                    {"name":"Frame 1","type":"FRAME","location":"Garage","quantity":1,"condition":"NEW"}
+                    {"name":"Frame 2","type":"BOGUS","location":"Garage","quantity":1,"condition":"NEW"}
+                    {"name":"Frame 3","type":"FRAME","location":"Garage","quantity":1,"condition":"NEW"}
+                    """;
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/parts/bulk", body)
+                            .contentType("application/x-ndjson")
+                            .bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.received()).isEqualTo(3);
+            assertThat(response.inserted()).isEqualTo(2);
+            assertThat(response.failed()).isEqualTo(1);
+            assertThat(response.errors()).extracting(BulkImportResponse.ItemError::index).containsExactly(1);
+            assertThat(partRepository.findByType(PartType.FRAME))
+                    .extracting(Part::getName)
+                    .containsExactlyInAnyOrder("Frame 1", "Frame 3");
+        }
+
+        @Test
+        void should_return_the_partial_summary_when_the_body_stops_being_json() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            String body = """
+                    {"name":"Frame 1","type":"FRAME","location":"Garage","quantity":1,"condition":"NEW"}
+                    {"name":"Frame 2","type":
+                    """;
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/parts/bulk", body)
+                            .contentType("application/x-ndjson")
+                            .bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.inserted()).isEqualTo(1);
+            assertThat(response.failed()).isEqualTo(1);
+            assertThat(response.errors()).extracting(BulkImportResponse.ItemError::index).containsExactly(1);
+            assertThat(partRepository.findByType(PartType.FRAME)).extracting(Part::getName).containsExactly("Frame 1");
+        }
+
+        @Test
+        void should_report_only_the_item_the_database_rejects() {
+            // given - PostgreSQL rejects NUL characters in text, which validation lets through
+            String token = loginAndGetToken("mart", "mart123");
+            List<PartCreateRequest> requests = List.of(
+                    new PartCreateRequest("Brake 1", null, PartType.BRAKE, "Garage", 2, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake\0 2", null, PartType.BRAKE, "Garage", 1, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake 3", null, PartType.BRAKE, "Garage", 4, PartCondition.NEW, null)
+            );
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/parts/bulk", requests).bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.inserted()).isEqualTo(2);
+            assertThat(response.failed()).isEqualTo(1);
+            assertThat(response.errors()).singleElement()
+                    .satisfies(error -> assertThat(error.index()).isEqualTo(1));
+            assertThat(partRepository.findByType(PartType.BRAKE))
+                    .extracting(Part::getName)
+                    .containsExactlyInAnyOrder("Brake 1", "Brake 3");
+        }
+    }
+
+    @Nested
+    class QueryTests {
+
+        @Test
+        void should_page_through_combined_filter_results() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            List<PartCreateRequest> requests = List.of(
+                    new PartCreateRequest("Brake 1", null, PartType.BRAKE, "Garage - Shelf A", 2, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake 2", null, PartType.BRAKE, "Garage - Shelf B", 5, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake 3", null, PartType.BRAKE, "Basement", 3, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake 4", null, PartType.BRAKE, "Garage - Shelf A", 1, PartCondition.POOR, null),
+                    new PartCreateRequest("Tire 1", null, PartType.TIRE, "Garage - Shelf A", 4, PartCondition.NEW, null)
+            );
+            client.toBlocking().retrieve(HttpRequest.POST("/api/parts/bulk", requests).bearerAuth(token), BulkImportResponse.class);
+
+            // when
+            Map<String, Object> page = client.toBlocking().retrieve(
+                    HttpRequest.GET("/api/parts/query?type=BRAKE&condition=NEW&location=Garage&quantityMin=2&size=1&sort=quantity&direction=DESC")
+                            .bearerAuth(token),
+                    Argument.of(Map.class, String.class, Object.class));
+
+            // then
+            assertThat(((Number) page.get("totalElements")).intValue()).isEqualTo(2);
+            assertThat((List<?>) page.get("content"))
+                    .singleElement()
+                    .satisfies(item -> assertThat(((Map<?, ?>) item).get("name")).isEqualTo("Brake 2"));
+        }
+
+        @Test
+        void should_return_400_when_quantity_range_is_inverted() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+
+            // when
+            Throwable thrown = catchThrowable(() -> client.toBlocking()
+                    .exchange(HttpRequest.GET("/api/parts/query?quantityMin=5&quantityMax=1").bearerAuth(token), Map.class));
+
+            // then
+            assertThat(thrown).isInstanceOf(HttpClientResponseException.class);
+            assertThat(((HttpClientResponseException) thrown).getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Nested
+    class QueryResultCacheTests {
+
+        @Test
+        void should_not_serve_cached_type_list_after_committed_write() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            createPartWithDetails("Brake 1", PartType.BRAKE, token);
+            List<PartResponse> before = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/parts/type/BRAKE").bearerAuth(token), Argument.listOf(PartResponse.class));
+
+            // when
+            createPartWithDetails("Brake 2", PartType.BRAKE, token);
+            List<PartResponse> after = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/parts/type/BRAKE").bearerAuth(token), Argument.listOf(PartResponse.class));
+
+            // then
+            assertThat(before).hasSize(1);
+            assertThat(after).extracting(PartResponse::name).containsExactlyInAnyOrder("Brake 1", "Brake 2");
+        }
+
+        @Test
+        void should_apply_invalidation_published_by_another_node() throws InterruptedException {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            Long id = createTestPartAndGetId(token);
+            client.toBlocking().retrieve(HttpRequest.GET("/api/parts/" + id).bearerAuth(token), PartResponse.class);
+
+            // when - another replica renames the part and announces it on the shared channel
+            transactionOperations.executeWrite(status -> {
+                jdbcOperations.prepareStatement("UPDATE parts SET name = 'Renamed elsewhere' WHERE id = ?", statement -> {
+                    statement.setLong(1, id);
+                    return statement.executeUpdate();
+                });
+                jdbcOperations.prepareStatement("SELECT pg_notify('inventory_cache_invalidation', ?)", statement -> {
+                    statement.setString(1, "other-node parts " + id);
+                    return statement.execute();
+                });
+                return null;
+            });
+
+            // then
+            String name = null;
+            for (int attempt = 0; attempt < 50 && !"Renamed elsewhere".equals(name); attempt++) {
+                Thread.sleep(100);
+                name = client.toBlocking()
+                        .retrieve(HttpRequest.GET("/api/parts/" + id).bearerAuth(token), PartResponse.class).name();
+            }
+            assertThat(name).isEqualTo("Renamed elsewhere");
+        }
+    }
+
+    @Nested
+    class ConditionalGetTests {
+
+        @Test
+        void should_let_the_web_origin_send_patch_and_if_none_match_and_read_the_etag() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            Long partId = createTestPartAndGetId(token);
+
+            // when
+            HttpResponse<?> preflight = client.toBlocking().exchange(HttpRequest.OPTIONS("/api/parts")
+                    .header(HttpHeaders.ORIGIN, "http://localhost:5173")
+                    .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "PATCH")
+                    .header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "If-None-Match"));
+            HttpResponse<PartResponse> response = client.toBlocking().exchange(HttpRequest.GET("/api/parts/" + partId)
+                    .bearerAuth(token).header(HttpHeaders.ORIGIN, "http://localhost:5173"), PartResponse.class);
+
+            // then
+            assertThat(String.join(",", preflight.getHeaders().getAll(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS)))
+                    .contains("PATCH");
+            assertThat(String.join(",", preflight.getHeaders().getAll(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS)))
+                    .containsIgnoringCase("If-None-Match");
+            assertThat(String.join(",", response.getHeaders().getAll(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS)))
+                    .containsIgnoringCase("ETag");
+        }
+
+        @Test
+        void should_return_304_for_unchanged_part_and_200_after_update() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            Long partId = createTestPartAndGetId(token);
+            String etag = client.toBlocking()
+                    .exchange(HttpRequest.GET("/api/parts/" + partId).bearerAuth(token), PartResponse.class)
+                    .header(HttpHeaders.ETAG);
+
+            // when
+            HttpResponse<PartResponse> unchanged = client.toBlocking().exchange(HttpRequest.GET("/api/parts/" + partId)
+                    .bearerAuth(token).header(HttpHeaders.IF_NONE_MATCH, etag), PartResponse.class);
+            client.toBlocking().exchange(HttpRequest.PUT("/api/parts/" + partId,
+                    new PartUpdateRequest("Renamed", null, null, null, null, null, null)).bearerAuth(token), PartResponse.class);
+            HttpResponse<PartResponse> changed = client.toBlocking().exchange(HttpRequest.GET("/api/parts/" + partId)
+                    .bearerAuth(token).header(HttpHeaders.IF_NONE_MATCH, etag), PartResponse.class);
+
+            // then
+            assertThat(etag).isNotBlank();
+            assertThat(unchanged.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(unchanged.getBody()).isEmpty();
+            assertThat(changed.getStatus()).isEqualTo(HttpStatus.OK);
+            assertThat(changed.header(HttpHeaders.ETAG)).isNotEqualTo(etag);
+            assertThat(changed.body().name()).isEqualTo("Renamed");
+        }
+
+        @Test
+        void should_return_304_for_unchanged_page_until_a_part_is_added() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            createTestPartAndGetId(token);
+            String etag = client.toBlocking()
+                    .exchange(HttpRequest.GET("/api/parts?size=10").bearerAuth(token), String.class)
+                    .header(HttpHeaders.ETAG);
+
+            // when
+            HttpResponse<String> unchanged = client.toBlocking().exchange(HttpRequest.GET("/api/parts?size=10")
+                    .bearerAuth(token).header(HttpHeaders.IF_NONE_MATCH, etag), String.class);
+            HttpResponse<String> otherPage = client.toBlocking().exchange(HttpRequest.GET("/api/parts?size=20")
+                    .bearerAuth(token).header(HttpHeaders.IF_NONE_MATCH, etag), String.class);
+            createTestPartAndGetId(token);
+            HttpResponse<String> changed = client.toBlocking().exchange(HttpRequest.GET("/api/parts?size=10")
+                    .bearerAuth(token).header(HttpHeaders.IF_NONE_MATCH, etag), String.class);
+
+            // then
+            assertThat(unchanged.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(otherPage.getStatus()).isEqualTo(HttpStatus.OK);
+            assertThat(changed.getStatus()).isEqualTo(HttpStatus.OK);
+            assertThat(changed.header(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        }
+
+        @Test
+        void should_change_page_etag_after_a_write_stamped_by_a_lagging_clock() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            Long partId = createTestPartAndGetId(token);
+            String etag = client.toBlocking()
+                    .exchange(HttpRequest.GET("/api/parts?size=10").bearerAuth(token), String.class)
+                    .header(HttpHeaders.ETAG);
+
+            // when - a replica whose clock is far behind writes the row and announces it
+            transactionOperations.executeWrite(status -> {
+                jdbcOperations.prepareStatement(
+                        "UPDATE parts SET quantity = 9, updated_at = TIMESTAMP '2000-01-01 00:00' WHERE id = ?",
+                        statement -> {
+                            statement.setLong(1, partId);
+                            return statement.executeUpdate();
+                        });
+                eventPublisher.publishEvent(new TableChangedEvent("parts", partId));
+                return null;
+            });
+            HttpResponse<String> changed = client.toBlocking().exchange(HttpRequest.GET("/api/parts?size=10")
+                    .bearerAuth(token).header(HttpHeaders.IF_NONE_MATCH, etag), String.class);
+
+            // then
+            assertThat(changed.getStatus()).isEqualTo(HttpStatus.OK);
+            assertThat(changed.header(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        }
+
+        @Test
+        void should_not_bump_table_version_for_a_statement_that_touches_no_rows() {
+            // given
+            long versionBefore = tableVersion();
+
+            // when
+            transactionOperations.executeWrite(status -> jdbcOperations.prepareStatement(
+                    "UPDATE parts SET quantity = 9 WHERE id = -1", statement -> statement.executeUpdate()));
+
+            // then
+            assertThat(tableVersion()).isEqualTo(versionBefore);
+        }
+
+        private long tableVersion() {
+            return jdbcOperations.prepareStatement(
+                    "SELECT COALESCE(SUM(version), 0) AS version FROM table_versions WHERE table_name = 'parts'",
+                    statement -> {
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            resultSet.next();
+                            return resultSet.getLong("version");
+                        }
+                    });
+        }
+    }
+
+    @Nested
+    class FacetTests {
+
+        @Test
+        void should_count_all_facets_and_refresh_after_write() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            List<PartCreateRequest> requests = List.of(
+                    new PartCreateRequest("Brake 1", null, PartType.BRAKE, "Garage", 2, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake 2", null, PartType.BRAKE, "Garage", 1, PartCondition.POOR, null),
+                    new PartCreateRequest("Tire 1", null, PartType.TIRE, "Basement", 4, PartCondition.NEW, null)
+            );
+            client.toBlocking().retrieve(HttpRequest.POST("/api/parts/bulk", requests).bearerAuth(token), BulkImportResponse.class);
+
+            // when
+            FacetsResponse before = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/parts/facets?location=Garage").bearerAuth(token), FacetsResponse.class);
+            createTestPartAndGetId(token);
+            FacetsResponse after = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/parts/facets?location=Garage").bearerAuth(token), FacetsResponse.class);
+
+            // then
+            assertThat(before.total()).isEqualTo(2);
+            assertThat(before.facets().get("type")).containsEntry("BRAKE", 2L).containsEntry("TIRE", 0L);
+            assertThat(before.facets().get("condition")).containsEntry("NEW", 1L).containsEntry("POOR", 1L);
+            assertThat(after.total()).isEqualTo(3);
+            assertThat(after.facets().get("type")).containsEntry("OTHER", 1L);
+        }
+    }
+
+    @Nested
+    class SetBasedWriteTests {
+
+        @Test
+        void should_move_matching_parts_in_one_request() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            List<PartCreateRequest> requests = List.of(
+                    new PartCreateRequest("Brake 1", null, PartType.BRAKE, "Garage - Shelf A", 2, PartCondition.NEW, null),
+                    new PartCreateRequest("Brake 2", null, PartType.BRAKE, "Garage - Shelf A", 1, PartCondition.GOOD, null),
+                    new PartCreateRequest("Tire 1", null, PartType.TIRE, "Garage - Shelf B", 4, PartCondition.GOOD, null)
+            );
+            client.toBlocking().retrieve(HttpRequest.POST("/api/parts/bulk", requests).bearerAuth(token), BulkImportResponse.class);
+            PartUpdateRequest changes = new PartUpdateRequest(null, null, null, "Basement", null, null, null);
+
+            // when
+            BulkWriteResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.PATCH("/api/parts?location=Garage%20-%20Shelf%20A", changes).bearerAuth(token),
+                            BulkWriteResponse.class);
+
+            // then
+            assertThat(response.affected()).isEqualTo(2);
+            assertThat(partRepository.findAll())
+                    .extracting(Part::getLocation)
+                    .containsExactlyInAnyOrder("Basement", "Basement", "Garage - Shelf B");
+        }
+
+        @Test
+        void should_delete_matching_parts_in_one_request() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            List<PartCreateRequest> requests = List.of(
+                    new PartCreateRequest("Brake 1", null, PartType.BRAKE, "Garage", 2, PartCondition.POOR, null),
+                    new PartCreateRequest("Tire 1", null, PartType.TIRE, "Garage", 4, PartCondition.GOOD, null)
+            );
+            client.toBlocking().retrieve(HttpRequest.POST("/api/parts/bulk", requests).bearerAuth(token), BulkImportResponse.class);
+
+            // when
+            BulkWriteResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.DELETE("/api/parts?condition=POOR").bearerAuth(token), BulkWriteResponse.class);
+
+            // then
+            assertThat(response.affected()).isEqualTo(1);
+            assertThat(partRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        void should_delete_parts_by_id_and_skip_unknown_ids() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            Long first = createTestPartAndGetId(token);
+            Long second = createTestPartAndGetId(token);
+            Long kept = createTestPartAndGetId(token);
+
+            // when
+            BulkWriteResponse response = client.toBlocking().retrieve(
+                    HttpRequest.DELETE("/api/parts/batch?ids=" + first + "," + second + ",999999").bearerAuth(token),
+                    BulkWriteResponse.class);
+
+            // then
+            assertThat(response.affected()).isEqualTo(2);
+            assertThat(partRepository.findAll()).extracting(Part::getId).containsExactly(kept);
+        }
+
+        @Test
+        void should_announce_a_multi_id_delete_with_a_single_notification() throws SQLException {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            List<Long> ids = List.of(createTestPartAndGetId(token), createTestPartAndGetId(token),
+                    createTestPartAndGetId(token));
+
+            try (Connection listener = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = listener.createStatement()) {
+                    statement.execute("LISTEN inventory_cache_invalidation");
+                }
+
+                // when
+                client.toBlocking().retrieve(HttpRequest.DELETE("/api/parts/batch?ids="
+                        + ids.stream().map(String::valueOf).collect(Collectors.joining(","))).bearerAuth(token),
+                        BulkWriteResponse.class);
+
+                // then - payloads are "<node> <table> <id or *>"
+                PGNotification[] notifications = listener.unwrap(PGConnection.class).getNotifications(1000);
+                assertThat(notifications)
+                        .extracting(notification -> notification.getParameter().split(" ", 2)[1])
+                        .containsExactly("parts *");
+            }
+        }
+
+        @Test
+        void should_return_400_when_no_filter_is_given() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            createTestPartAndGetId(token);
+
+            // when
+            Throwable thrown = catchThrowable(() -> client.toBlocking()
+                    .exchange(HttpRequest.DELETE("/api/parts").bearerAuth(token), BulkWriteResponse.class));
+
+            // then
+            assertThat(thrown).isInstanceOf(HttpClientResponseException.class);
+            assertThat(((HttpClientResponseException) thrown).getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(partRepository.count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    class MetricsTests {
+
+        @Test
+        void should_expose_route_and_repository_timers_for_prometheus() {
+            // given
+            String token = loginAndGetToken("mart", "mart123");
+            Long partId = createTestPartAndGetId(token);
+            client.toBlocking().exchange(HttpRequest.GET("/api/parts/" + partId).bearerAuth(token), PartResponse.class);
+
+            // when
+            String scrape = client.toBlocking().retrieve(HttpRequest.GET("/prometheus"), String.class);
+
+            // then
+            assertThat(scrape).contains("http_server_requests_seconds_bucket{");
+            assertThat(scrape).contains("uri=\"/api/parts/{id}\"");
+            assertThat(scrape).contains("inventory_repository_seconds_bucket{");
+            assertThat(scrape).contains("repository=\"PartRepository\"");
+            assertThat(scrape).contains("repository=\"ReactivePartRepository\"");
+            assertThat(scrape).contains("inventory_repository_rows_count{");
+        }
+
+        @Test
+        void should_serve_slow_queries_to_admins_only() {
+            // given
+            String partsToken = loginAndGetToken("mart", "mart123");
+            String adminToken = loginAndGetToken("admin", "admin123");
+
+            // when
+            Throwable anonymous = catchThrowable(() ->
+                    client.toBlocking().exchange(HttpRequest.GET("/admin/slow-queries"), String.class));
+            Throwable partsUser = catchThrowable(() -> client.toBlocking()
+                    .exchange(HttpRequest.GET("/admin/slow-queries").bearerAuth(partsToken), String.class));
+            HttpResponse<String> response = client.toBlocking()
+                    .exchange(HttpRequest.GET("/admin/slow-queries").bearerAuth(adminToken), String.class);
+
+            // then
+            assertThat(anonymous).isInstanceOf(HttpClientResponseException.class);
+            assertThat(((HttpClientResponseException) anonymous).getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED);
+            assertThat(partsUser).isInstanceOf(HttpClientResponseException.class);
+            assertThat(((HttpClientResponseException) partsUser).getStatus()).isEqualTo(HttpStatus.FORBIDDEN);
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK);
+            assertThat(response.body()).startsWith("[");
+        }
+    }
+
     private Long createTestPartAndGetId(String token) {
         PartCreateRequest request = new PartCreateRequest(
                 "Test Part",
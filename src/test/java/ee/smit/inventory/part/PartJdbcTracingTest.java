@@ -0,0 +1,162 @@
+package ee.smit.inventory.part;
+
+/**
+ * Runs transactions, set-based writes and streaming reads against the parts table through the DataSource
+ * wrapped by {@code TracingDataSourceListener}, and checks that they behave as before and produce statement spans.
+ */
+
+import ee.smit.inventory.common.BulkWriteResponse;
+import ee.smit.inventory.common.SetBasedWrites;
+import ee.smit.inventory.common.StreamingQueries;
+import ee.smit.inventory.common.TableChangedEvent;
+import ee.smit.inventory.exception.ValidationException;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.instrumentation.jdbc.datasource.OpenTelemetryDataSource;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+// Not transactional, so the transactions under test commit and roll back for real
+@MicronautTest(transactional = false)
+@Property(name = "inventory.bulk.max-affected-rows", value = "2")
+class PartJdbcTracingTest {
+
+    private static final String SHELF = "Traced shelf";
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    PartRepository partRepository;
+
+    @Inject
+    SetBasedWrites setBasedWrites;
+
+    @Inject
+    StreamingQueries streamingQueries;
+
+    @Inject
+    TransactionOperations<Connection> transactionOperations;
+
+    @Inject
+    ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Inject
+    InMemorySpanExporter spanExporter;
+
+    @BeforeEach
+    void setUp() {
+        transactionOperations.executeWrite(status -> {
+            partRepository.deleteAll();
+            eventPublisher.publishEvent(new TableChangedEvent("parts"));
+            return null;
+        });
+        spanExporter.reset();
+    }
+
+    @Test
+    void should_hand_out_driver_connections_from_the_wrapped_datasource() {
+        // when
+        boolean unwrapped = transactionOperations.executeRead(status -> {
+            Connection connection = status.getConnection();
+            return connection.isWrapperFor(PGConnection.class) && connection.unwrap(PGConnection.class) != null;
+        });
+
+        // then
+        assertThat(dataSource).isInstanceOf(OpenTelemetryDataSource.class);
+        assertThat(unwrapped).isTrue();
+    }
+
+    @Test
+    void should_roll_back_a_failed_transaction_through_the_wrapped_datasource() {
+        // when
+        Throwable thrown = catchThrowable(() -> transactionOperations.executeWrite(status -> {
+            partRepository.save(createPart("Rolled back"));
+            throw new IllegalStateException("abort");
+        }));
+
+        // then
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(partRepository.count()).isZero();
+        assertThat(statements())
+                .anyMatch(statement -> statement.startsWith("INSERT INTO") && statement.contains("parts"));
+    }
+
+    @Test
+    void should_run_set_based_writes_and_their_limit_rollback_through_the_wrapped_datasource() {
+        // given
+        Long first = partRepository.save(createPart("Traced first")).getId();
+        Long second = partRepository.save(createPart("Traced second")).getId();
+        partRepository.save(createPart("Traced third"));
+
+        // when
+        Throwable tooBroad = catchThrowable(() -> setBasedWrites.execute("parts",
+                "UPDATE parts SET quantity = quantity + 1 WHERE location = ?", List.of(SHELF)));
+        BulkWriteResponse updated = setBasedWrites.execute("parts",
+                "UPDATE parts SET quantity = quantity + 1 WHERE id IN (?, ?)", List.of(first, second));
+        List<Long> deleted = setBasedWrites.deleteByIds("parts", List.of(first, second));
+
+        // then
+        assertThat(tooBroad).isInstanceOf(ValidationException.class);
+        assertThat(updated.affected()).isEqualTo(2);
+        assertThat(deleted).containsExactlyInAnyOrder(first, second);
+        assertThat(StreamSupport.stream(partRepository.findAll().spliterator(), false))
+                .extracting(Part::getQuantity)
+                .containsExactly(1);
+        assertThat(statements()).anyMatch(statement -> statement.startsWith("UPDATE parts"));
+        assertThat(statements()).anyMatch(statement -> statement.startsWith("DELETE FROM parts"));
+    }
+
+    @Test
+    void should_stream_rows_through_the_wrapped_datasource() {
+        // given
+        partRepository.save(createPart("Traced first"));
+        partRepository.save(createPart("Traced second"));
+        partRepository.save(createPart("Traced third"));
+
+        // when
+        List<Part> streamed = streamingQueries
+                .stream("SELECT * FROM parts WHERE location = ? ORDER BY id", List.<Object>of(SHELF), Part.class)
+                .collectList()
+                .block();
+
+        // then
+        assertThat(streamed).extracting(Part::getName)
+                .containsExactly("Traced first", "Traced second", "Traced third");
+        assertThat(statements()).anyMatch(statement -> statement.startsWith("SELECT * FROM parts WHERE location"));
+    }
+
+    private List<String> statements() {
+        return spanExporter.getFinishedSpanItems().stream()
+                .map(span -> span.getAttributes().get(AttributeKey.stringKey("db.statement")))
+                .filter(statement -> statement != null)
+                .toList();
+    }
+
+    private Part createPart(String name) {
+        Part part = new Part();
+        part.setName(name);
+        part.setType(PartType.BRAKE);
+        part.setLocation(SHELF);
+        part.setQuantity(1);
+        part.setCondition(PartCondition.NEW);
+        part.setCreatedAt(LocalDateTime.now());
+        part.setUpdatedAt(LocalDateTime.now());
+        return part;
+    }
+}
@@ -5,12 +5,23 @@ package ee.smit.inventory.part;
  * Tests database operations for bicycle parts using Testcontainers PostgreSQL.
  */
 
+import ee.smit.inventory.common.QueryUtils;
+import io.micronaut.data.model.Page;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.repository.jpa.criteria.PredicateSpecification;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,6 +32,9 @@ class PartRepositoryTest {
     @Inject
     PartRepository partRepository;
 
+    @Inject
+    TransactionOperations<Connection> transactionOperations;
+
     @BeforeEach
     void setUp() {
         partRepository.deleteAll();
@@ -92,6 +106,52 @@ class PartRepositoryTest {
         assertThat(descResults).hasSize(2);
     }
 
+    @Test
+    void should_escape_like_wildcards_in_search() {
+        // given
+        partRepository.save(createTestPart("100% Carbon Frame", PartType.FRAME));
+        partRepository.save(createTestPart("1000 Lumen Light", PartType.OTHER));
+
+        // when
+        List<Part> results = partRepository.searchByNameOrDescription(QueryUtils.escapeLikePattern("100%"));
+
+        // then
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getName()).isEqualTo("100% Carbon Frame");
+    }
+
+    @Test
+    void should_use_trigram_indexes_for_search() {
+        // given
+        partRepository.save(createTestPart("Shimano Ultegra Brake", PartType.BRAKE));
+
+        // when - seq scan disabled so the tiny test table does not hide the index path
+        List<String> plan = transactionOperations.executeRead(status -> {
+            Connection connection = status.getConnection();
+            String explain = "EXPLAIN " + PartRepository.SEARCH_BY_NAME_OR_DESCRIPTION.replace(":query", "?");
+            try (Statement settings = connection.createStatement();
+                 PreparedStatement statement = connection.prepareStatement(explain)) {
+                settings.execute("SET LOCAL enable_seqscan = off");
+                statement.setString(1, "shimano");
+                statement.setString(2, "shimano");
+                List<String> lines = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        lines.add(resultSet.getString(1));
+                    }
+                }
+                return lines;
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // then
+        assertThat(plan).anyMatch(line -> line.contains("Bitmap Index Scan on idx_parts_name_trgm"));
+        assertThat(plan).anyMatch(line -> line.contains("Bitmap Index Scan on idx_parts_description_trgm"));
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
     @Test
     void should_count_by_type() {
         // given
@@ -108,6 +168,35 @@ class PartRepositoryTest {
         assertThat(tireCount).isEqualTo(1);
     }
 
+    @Test
+    void should_combine_specifications_into_one_filter() {
+        // given
+        Part match = createTestPart("Shimano Brake", PartType.BRAKE);
+        match.setLocation("Garage - Shelf A");
+        match.setQuantity(3);
+        partRepository.save(match);
+        Part wrongLocation = createTestPart("Shimano Brake Pads", PartType.BRAKE);
+        wrongLocation.setLocation("Basement");
+        partRepository.save(wrongLocation);
+        Part tooMany = createTestPart("Shimano Brake Cable", PartType.BRAKE);
+        tooMany.setLocation("Garage - Shelf B");
+        tooMany.setQuantity(20);
+        partRepository.save(tooMany);
+        partRepository.save(createTestPart("Shimano Tire", PartType.TIRE));
+
+        // when
+        PredicateSpecification<Part> specification = PredicateSpecification.<Part>where(null)
+                .and(PartSpecifications.hasType(PartType.BRAKE))
+                .and(PartSpecifications.locationStartsWith("Garage"))
+                .and(PartSpecifications.quantityAtMost(10))
+                .and(PartSpecifications.nameOrDescriptionContains("shimano"));
+        Page<Part> page = partRepository.findAll(specification, Pageable.from(0, 10));
+
+        // then
+        assertThat(page.getTotalSize()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(Part::getName).containsExactly("Shimano Brake");
+    }
+
     private Part createTestPart(String name, PartType type) {
         Part part = new Part();
         part.setName(name);
@@ -5,23 +5,43 @@ package ee.smit.inventory.part;
  * Tests business logic for bicycle parts using Mockito for repository mocking.
  */
 
+import ee.smit.inventory.common.KeysetQueries;
+import ee.smit.inventory.common.QueryResultCache;
+import ee.smit.inventory.common.SetBasedWrites;
+import ee.smit.inventory.common.StreamingQueries;
+import ee.smit.inventory.common.TableChangedEvent;
 import ee.smit.inventory.exception.NotFoundException;
 import ee.smit.inventory.part.dto.PartCreateRequest;
 import ee.smit.inventory.part.dto.PartUpdateRequest;
+import io.micronaut.cache.SyncCache;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.data.model.Page;
+import io.micronaut.data.model.Pageable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,11 +50,35 @@ class PartServiceTest {
     @Mock
     private PartRepository partRepository;
 
+    @Mock
+    private ReactivePartRepository reactivePartRepository;
+
+    @Mock
+    private KeysetQueries keysetQueries;
+
+    @Mock
+    private StreamingQueries streamingQueries;
+
+    @Mock
+    private ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Mock
+    private SyncCache<Object> cache;
+
+    @Mock
+    private QueryResultCache queryResultCache;
+
+    @Mock
+    private SetBasedWrites setBasedWrites;
+
     private PartService partService;
 
     @BeforeEach
     void setUp() {
-        partService = new PartService(partRepository);
+        lenient().when(queryResultCache.getAsync(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+        partService = new PartService(partRepository, reactivePartRepository,
+                keysetQueries, streamingQueries, eventPublisher, cache, queryResultCache, setBasedWrites);
     }
 
     @Test
@@ -71,39 +115,152 @@ class PartServiceTest {
     void should_find_part_by_id() {
         // given
         Part part = createTestPart(1L, "Test Part");
-        given(partRepository.findById(1L)).willReturn(Optional.of(part));
+        given(reactivePartRepository.findById(1L)).willReturn(Mono.just(part));
 
         // when
-        Optional<Part> result = partService.findById(1L);
+        Part result = partService.findById(1L).block();
 
         // then
-        assertThat(result).isPresent();
-        assertThat(result.get().getName()).isEqualTo("Test Part");
+        assertThat(result).isNotNull();
+        assertThat(result.getName()).isEqualTo("Test Part");
     }
 
     @Test
-    void should_update_part() {
+    void should_serve_cached_part_without_database_round_trip() {
         // given
-        Part existingPart = createTestPart(1L, "Old Name");
-        given(partRepository.findById(1L)).willReturn(Optional.of(existingPart));
-        given(partRepository.update(any(Part.class))).willAnswer(i -> i.getArgument(0));
+        Part part = createTestPart(1L, "Cached Part");
+        given(cache.get(1L, Part.class)).willReturn(Optional.of(part));
+
+        // when
+        Part result = partService.findById(1L).block();
+
+        // then
+        assertThat(result).isSameAs(part);
+        verify(reactivePartRepository, never()).findById(any());
+    }
+
+    @Test
+    void should_populate_cache_on_miss() {
+        // given
+        Part part = createTestPart(1L, "Test Part");
+        given(reactivePartRepository.findById(1L)).willReturn(Mono.just(part));
+
+        // when
+        partService.findById(1L).block();
+
+        // then
+        verify(cache).put(1L, part);
+    }
+
+    @Test
+    void should_not_cache_part_when_a_write_commits_during_the_load() {
+        // given - the commit of a concurrent write evicts while the row is being read
+        Part part = createTestPart(1L, "Test Part");
+        given(reactivePartRepository.findById(1L)).willReturn(Mono.fromCallable(() -> {
+            partService.onTableChanged(new TableChangedEvent("parts", 1L));
+            return part;
+        }));
+
+        // when
+        Part result = partService.findById(1L).block();
+
+        // then
+        assertThat(result).isSameAs(part);
+        verify(cache, never()).put(any(), any());
+    }
+
+    @Test
+    void should_drop_cached_part_when_a_write_commits_during_the_put() {
+        // given - the eviction runs just before the put lands
+        Part part = createTestPart(1L, "Test Part");
+        given(reactivePartRepository.findById(1L)).willReturn(Mono.just(part));
+        willAnswer(invocation -> {
+            partService.onTableChanged(new TableChangedEvent("parts", 1L));
+            return null;
+        }).given(cache).put(1L, part);
+
+        // when
+        partService.findById(1L).block();
+
+        // then - once by the eviction itself, once more because the put raced it
+        verify(cache, times(2)).invalidate(1L);
+    }
+
+    @Test
+    void should_evict_only_the_changed_part_after_commit() {
+        // when
+        partService.onTableChanged(new TableChangedEvent("parts", 7L));
+        partService.onTableChanged(new TableChangedEvent("vinyl_records", 8L));
+
+        // then
+        verify(cache).invalidate(7L);
+        verify(cache, never()).invalidate(8L);
+        verify(cache, never()).invalidateAll();
+    }
+
+    @Test
+    void should_take_page_total_from_counter_table() {
+        // given
+        Pageable pageable = Pageable.from(0, 20);
+        given(reactivePartRepository.list(pageable)).willReturn(Flux.just(createTestPart(1L, "Test Part")));
+        given(reactivePartRepository.count()).willReturn(Mono.just(42L));
+
+        // when
+        Page<Part> page = partService.findAll(pageable, false).block();
+
+        // then
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalSize()).isEqualTo(42L);
+        verify(reactivePartRepository, never()).estimateCount();
+    }
+
+    @Test
+    void should_fall_back_to_exact_count_when_estimate_is_unavailable() {
+        // given
+        Pageable pageable = Pageable.from(0, 20);
+        given(reactivePartRepository.list(pageable)).willReturn(Flux.empty());
+        given(reactivePartRepository.estimateCount()).willReturn(Mono.just(-1L));
+        given(reactivePartRepository.count()).willReturn(Mono.just(3L));
+
+        // when
+        Page<Part> page = partService.findAll(pageable, true).block();
+
+        // then
+        assertThat(page.getTotalSize()).isEqualTo(3L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_update_only_provided_fields_in_one_statement() {
+        // given
+        Part updatedPart = createTestPart(1L, "New Name");
+        given(setBasedWrites.updateReturning(eq("parts"), eq(1L), anyString(), anyList(), eq(Part.class)))
+                .willReturn(Optional.of(updatedPart));
         PartUpdateRequest request = new PartUpdateRequest(
-                "New Name",
-                null, null, null, null, null, null
+                " New Name ",
+                null, null, null, 3, null, null
         );
 
         // when
         Part result = partService.update(1L, request);
 
         // then
-        assertThat(result.getName()).isEqualTo("New Name");
-        assertThat(result.getUpdatedAt()).isNotNull();
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object>> parameters = ArgumentCaptor.forClass(List.class);
+        verify(setBasedWrites).updateReturning(eq("parts"), eq(1L), sql.capture(), parameters.capture(), eq(Part.class));
+        assertThat(sql.getValue())
+                .isEqualTo("UPDATE parts SET updated_at = ?, name = ?, quantity = ? WHERE id = ? RETURNING *");
+        assertThat(parameters.getValue()).hasSize(4);
+        assertThat(parameters.getValue().subList(1, 4)).containsExactly("New Name", 3, 1L);
+        assertThat(result).isSameAs(updatedPart);
+        verify(partRepository, never()).findById(any());
     }
 
     @Test
     void should_throw_exception_when_updating_non_existent_part() {
         // given
-        given(partRepository.findById(999L)).willReturn(Optional.empty());
+        given(setBasedWrites.updateReturning(eq("parts"), eq(999L), anyString(), anyList(), eq(Part.class)))
+                .willReturn(Optional.empty());
         PartUpdateRequest request = new PartUpdateRequest(
                 "New Name", null, null, null, null, null, null
         );
@@ -120,20 +277,20 @@ class PartServiceTest {
     @Test
     void should_delete_part() {
         // given
-        Part part = createTestPart(1L, "Test Part");
-        given(partRepository.findById(1L)).willReturn(Optional.of(part));
+        given(setBasedWrites.deleteByIds("parts", List.of(1L))).willReturn(List.of(1L));
 
         // when
         partService.delete(1L);
 
         // then
-        verify(partRepository).delete(part);
+        verify(setBasedWrites).deleteByIds("parts", List.of(1L));
+        verify(partRepository, never()).findById(any());
     }
 
     @Test
     void should_throw_exception_when_deleting_non_existent_part() {
         // given
-        given(partRepository.findById(999L)).willReturn(Optional.empty());
+        given(setBasedWrites.deleteByIds("parts", List.of(999L))).willReturn(List.of());
 
         // when
         Throwable throwable = catchThrowable(() -> partService.delete(999L));
@@ -0,0 +1,98 @@
+package ee.smit.inventory.part;
+
+/**
+ * Tests the slow query log against real repository calls, with a zero threshold so every call is recorded
+ * and plan capture switched on.
+ */
+
+import ee.smit.inventory.common.SlowQuery;
+import ee.smit.inventory.common.SlowQueryLog;
+import ee.smit.inventory.common.TableChangedEvent;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest
+@Property(name = "inventory.slow-queries.threshold", value = "0ms")
+@Property(name = "inventory.slow-queries.explain", value = "true")
+class PartSlowQueryLogTest {
+
+    @Inject
+    PartRepository partRepository;
+
+    @Inject
+    SlowQueryLog slowQueryLog;
+
+    @Inject
+    ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Inject
+    TransactionOperations<Connection> transactionOperations;
+
+    @BeforeEach
+    void setUp() {
+        transactionOperations.executeWrite(status -> {
+            partRepository.deleteAll();
+            eventPublisher.publishEvent(new TableChangedEvent("parts"));
+            return null;
+        });
+        partRepository.save(createPart("Slow brake pad"));
+        partRepository.save(createPart("Slow brake cable"));
+        partRepository.save(createPart("Chain"));
+    }
+
+    @Test
+    void should_record_repository_method_rows_and_parameters() {
+        // when
+        partRepository.searchByNameOrDescription("slow brake");
+
+        // then
+        SlowQuery query = findSearch("slow brake");
+        assertThat(query.repository()).isEqualTo("PartRepository");
+        assertThat(query.method()).isEqualTo("searchByNameOrDescription");
+        assertThat(query.rows()).isEqualTo(2);
+        assertThat(query.parameters()).containsExactly("slow brake");
+        assertThat(query.sql()).startsWith("SELECT * FROM parts");
+    }
+
+    @Test
+    void should_capture_plan_for_plain_query_select() {
+        // when
+        partRepository.searchByNameOrDescription("cable");
+
+        // then
+        SlowQuery query = findSearch("cable");
+        assertThat(query.plan()).isNotBlank();
+        assertThat(query.plan()).contains("on parts").contains("Execution Time");
+    }
+
+    private SlowQuery findSearch(String parameter) {
+        return slowQueryLog.slowest().stream()
+                .filter(query -> query.method().equals("searchByNameOrDescription"))
+                .filter(query -> query.parameters().equals(List.of(parameter)))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Part createPart(String name) {
+        Part part = new Part();
+        part.setName(name);
+        part.setType(PartType.BRAKE);
+        part.setLocation("Garage");
+        part.setQuantity(1);
+        part.setCondition(PartCondition.NEW);
+        part.setCreatedAt(LocalDateTime.now());
+        part.setUpdatedAt(LocalDateTime.now());
+        return part;
+    }
+}
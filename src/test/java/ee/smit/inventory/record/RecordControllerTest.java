@@ -5,23 +5,32 @@ package ee.smit.inventory.record;
  * Tests HTTP endpoints for vinyl records CRUD operations using Micronaut HTTP client.
  */
 
+import ee.smit.inventory.common.TableChangedEvent;
 import ee.smit.inventory.record.dto.RecordCreateRequest;
 import ee.smit.inventory.record.dto.RecordResponse;
 import ee.smit.inventory.record.dto.RecordUpdateRequest;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.HttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
 import io.micronaut.security.token.render.BearerAccessRefreshToken;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -33,12 +42,26 @@ class RecordControllerTest {
     @Client("/")
     HttpClient client;
 
+    @Inject
+    EmbeddedServer server;
+
     @Inject
     RecordRepository recordRepository;
 
+    @Inject
+    ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Inject
+    TransactionOperations<Connection> transactionOperations;
+
     @BeforeEach
     void setUp() {
-        recordRepository.deleteAll();
+        // deleteAll bypasses the services, so announce it to the caches the way they do
+        transactionOperations.executeWrite(status -> {
+            recordRepository.deleteAll();
+            eventPublisher.publishEvent(new TableChangedEvent("vinyl_records"));
+            return null;
+        });
     }
 
     @Test
@@ -167,6 +190,93 @@ class RecordControllerTest {
         assertThat(response).hasSize(2);
     }
 
+    @Test
+    void should_search_ranked_across_notes() {
+        // given - "gatefold" is only in the notes of the first record and in the title of the second
+        String token = loginAndGetToken("katrin", "katrin123");
+        createTestRecordWithNotes("Wish You Were Here", "Pink Floyd", "Original gatefold sleeve", token);
+        createTestRecordWithNotes("Gatefold Sessions", "Various Artists", null, token);
+        createTestRecordWithNotes("Abbey Road", "The Beatles", "Single sleeve", token);
+
+        // when
+        RecordResponse[] response = client.toBlocking()
+                .retrieve(HttpRequest.GET("/api/records/search?q=gatefold&mode=ranked&limit=5").bearerAuth(token), RecordResponse[].class);
+
+        // then - a title match (weight A) ranks above a notes match (weight C)
+        assertThat(response).extracting(RecordResponse::title)
+                .containsExactly("Gatefold Sessions", "Wish You Were Here");
+    }
+
+    @Test
+    void should_return_400_for_unknown_search_mode() {
+        // given
+        String token = loginAndGetToken("katrin", "katrin123");
+
+        // when
+        Throwable throwable = catchThrowable(() ->
+                client.toBlocking().retrieve(HttpRequest.GET("/api/records/search?q=floyd&mode=fuzzy").bearerAuth(token)));
+
+        // then
+        assertThat(throwable).isInstanceOf(HttpClientResponseException.class);
+        HttpClientResponseException e = (HttpClientResponseException) throwable;
+        assertThat(e.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+    }
+
+    @Test
+    void should_export_records_as_csv() {
+        // given
+        String token = loginAndGetToken("katrin", "katrin123");
+        RecordCreateRequest request = new RecordCreateRequest(
+                "Abbey Road",
+                "The Beatles",
+                1969,
+                Genre.ROCK,
+                null,
+                null,
+                RecordCondition.EXCELLENT,
+                "Side B, \"the medley\""
+        );
+        client.toBlocking().exchange(HttpRequest.POST("/api/records", request).bearerAuth(token), RecordResponse.class);
+
+        // when
+        HttpResponse<String> response = client.toBlocking()
+                .exchange(HttpRequest.GET("/api/records/export.csv").bearerAuth(token), String.class);
+
+        // then
+        String[] lines = response.body().split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo("id,title,artist,releaseYear,genre,purchaseSource,purchaseDate,condition,notes,createdAt,updatedAt");
+        assertThat(lines[1]).contains(",Abbey Road,The Beatles,1969,ROCK,,,EXCELLENT,\"Side B, \"\"the medley\"\"\",");
+    }
+
+    @Test
+    void should_gzip_csv_export_when_client_accepts_it() throws Exception {
+        // given - Micronaut's client decompresses transparently, so the raw response is read with the JDK client
+        String token = loginAndGetToken("katrin", "katrin123");
+        createTestRecordWithArtist("Abbey Road", "The Beatles", token);
+        java.net.http.HttpRequest request = java.net.http.HttpRequest
+                .newBuilder(server.getURI().resolve("/api/records/export.csv"))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+
+        // when
+        java.net.http.HttpResponse<byte[]> response = java.net.http.HttpClient.newHttpClient()
+                .send(request, java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+
+        // then
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK.getCode());
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).contains("gzip");
+        String csv;
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            csv = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = csv.split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("id,title,artist,");
+        assertThat(lines[1]).contains(",Abbey Road,The Beatles,1970,ROCK,");
+    }
+
     private Long createTestRecordAndGetId(String token) {
         RecordCreateRequest request = new RecordCreateRequest(
                 "Test Album",
@@ -214,6 +324,21 @@ class RecordControllerTest {
         client.toBlocking().exchange(HttpRequest.POST("/api/records", request).bearerAuth(token), RecordResponse.class);
     }
 
+    private void createTestRecordWithNotes(String title, String artist, String notes, String token) {
+        RecordCreateRequest request = new RecordCreateRequest(
+                title,
+                artist,
+                1970,
+                Genre.ROCK,
+                "Test Store",
+                LocalDate.now(),
+                RecordCondition.EXCELLENT,
+                notes
+        );
+
+        client.toBlocking().exchange(HttpRequest.POST("/api/records", request).bearerAuth(token), RecordResponse.class);
+    }
+
     private String loginAndGetToken(String username, String password) {
         HttpResponse<BearerAccessRefreshToken> response = client.toBlocking()
                 .exchange(HttpRequest.POST("/login", Map.of("username", username, "password", password)),
@@ -5,10 +5,15 @@ package ee.smit.inventory.record;
  * Tests complete workflows including validation errors and error responses.
  */
 
+import ee.smit.inventory.common.BulkImportResponse;
+import ee.smit.inventory.common.BulkWriteResponse;
+import ee.smit.inventory.common.FacetsResponse;
+import ee.smit.inventory.common.TableChangedEvent;
 import ee.smit.inventory.exception.ErrorResponse;
 import ee.smit.inventory.record.dto.RecordCreateRequest;
 import ee.smit.inventory.record.dto.RecordResponse;
 import ee.smit.inventory.record.dto.RecordUpdateRequest;
+import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.core.type.Argument;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
@@ -18,12 +23,19 @@ import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.security.token.render.BearerAccessRefreshToken;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -40,9 +52,23 @@ class RecordIntegrationTest {
     @Inject
     RecordRepository recordRepository;
 
+    @Inject
+    ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Inject
+    TransactionOperations<Connection> transactionOperations;
+
+    @Inject
+    InMemorySpanExporter spanExporter;
+
     @BeforeEach
     void setUp() {
-        recordRepository.deleteAll();
+        // deleteAll bypasses the services, so announce it to the caches the way they do
+        transactionOperations.executeWrite(status -> {
+            recordRepository.deleteAll();
+            eventPublisher.publishEvent(new TableChangedEvent("vinyl_records"));
+            return null;
+        });
     }
 
     @Nested
@@ -429,6 +455,340 @@ class RecordIntegrationTest {
         }
     }
 
+    @Nested
+    class CursorPaginationTests {
+
+        @Test
+        void should_walk_pages_descending_with_id_tiebreaker() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            createRecordWithDetails("Rock 1", "Artist", Genre.ROCK, token);
+            createRecordWithDetails("Jazz 1", "Artist", Genre.JAZZ, token);
+            createRecordWithDetails("Rock 2", "Artist", Genre.ROCK, token);
+            createRecordWithDetails("Soul 1", "Artist", Genre.SOUL, token);
+
+            // when
+            List<Object> titles = new ArrayList<>();
+            String after = null;
+            boolean last = false;
+            while (!last) {
+                String uri = "/api/records/cursor?size=1&sort=genre&direction=DESC" + (after != null ? "&after=" + after : "");
+                Map<String, Object> page = client.toBlocking()
+                        .retrieve(HttpRequest.GET(uri).bearerAuth(token), Argument.of(Map.class, String.class, Object.class));
+                for (Object item : (List<?>) page.get("content")) {
+                    titles.add(((Map<?, ?>) item).get("title"));
+                }
+                after = (String) page.get("nextCursor");
+                last = (Boolean) page.get("last");
+            }
+
+            // then
+            assertThat(titles).containsExactly("Soul 1", "Rock 2", "Rock 1", "Jazz 1");
+        }
+    }
+
+    @Nested
+    class QueryTests {
+
+        @Test
+        void should_combine_genre_year_range_and_text_filters() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            createRecord(new RecordCreateRequest("Kind of Blue", "Miles Davis", 1959, Genre.JAZZ,
+                    null, LocalDate.of(2022, 1, 10), RecordCondition.EXCELLENT, null), token);
+            createRecord(new RecordCreateRequest("Bitches Brew", "Miles Davis", 1970, Genre.JAZZ,
+                    null, LocalDate.of(2023, 6, 1), RecordCondition.GOOD, null), token);
+            createRecord(new RecordCreateRequest("A Love Supreme", "John Coltrane", 1965, Genre.JAZZ,
+                    null, LocalDate.of(2023, 6, 1), RecordCondition.GOOD, null), token);
+            createRecord(new RecordCreateRequest("Miles Ahead Tribute", "Various", 1968, Genre.ROCK,
+                    null, LocalDate.of(2023, 6, 1), RecordCondition.GOOD, null), token);
+
+            // when
+            Map<String, Object> page = client.toBlocking().retrieve(
+                    HttpRequest.GET("/api/records/query?genre=JAZZ&yearFrom=1960&yearTo=1979&purchasedFrom=2023-01-01&q=miles")
+                            .bearerAuth(token),
+                    Argument.of(Map.class, String.class, Object.class));
+
+            // then
+            assertThat(((Number) page.get("totalElements")).intValue()).isEqualTo(1);
+            assertThat((List<?>) page.get("content"))
+                    .singleElement()
+                    .satisfies(item -> assertThat(((Map<?, ?>) item).get("title")).isEqualTo("Bitches Brew"));
+        }
+
+        @Test
+        void should_return_400_when_year_range_is_inverted() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+
+            // when
+            Throwable thrown = catchThrowable(() -> client.toBlocking()
+                    .exchange(HttpRequest.GET("/api/records/query?yearFrom=1990&yearTo=1980").bearerAuth(token), Map.class));
+
+            // then
+            assertThat(thrown).isInstanceOf(HttpClientResponseException.class);
+            assertThat(((HttpClientResponseException) thrown).getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Nested
+    class FacetTests {
+
+        @Test
+        void should_count_genres_conditions_and_decades_in_one_response() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            createRecord(new RecordCreateRequest("Kind of Blue", "Miles Davis", 1959, Genre.JAZZ,
+                    null, null, RecordCondition.EXCELLENT, null), token);
+            createRecord(new RecordCreateRequest("Bitches Brew", "Miles Davis", 1970, Genre.JAZZ,
+                    null, null, RecordCondition.GOOD, null), token);
+            createRecord(new RecordCreateRequest("Let It Be", "The Beatles", 1970, Genre.ROCK,
+                    null, null, RecordCondition.GOOD, null), token);
+
+            // when
+            FacetsResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.GET("/api/records/facets").bearerAuth(token), FacetsResponse.class);
+
+            // then
+            assertThat(response.total()).isEqualTo(3);
+            assertThat(response.facets().get("genre")).containsEntry("JAZZ", 2L).containsEntry("ROCK", 1L);
+            assertThat(response.facets().get("condition")).containsEntry("GOOD", 2L).containsEntry("MINT", 0L);
+            assertThat(response.facets().get("decade")).containsExactly(
+                    Map.entry("1950", 1L), Map.entry("1970", 2L));
+        }
+    }
+
+    @Nested
+    class CsvImportTests {
+
+        @Test
+        void should_import_discogs_csv_and_report_invalid_rows() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            String csv = """
+                    title,artist,release_year,genre,purchase_source,purchase_date,condition,notes
+                    Kind of Blue,Miles Davis,1959,Jazz,Discogs,2024-03-01,Very Good Plus (VG+),"Original press, 6-eye"
+                    ,Nobody,1980,Rock,,,VG,
+                    What's Going On,Marvin Gaye,1971,Funk / Soul,,,NM,
+                    """;
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/records/import", csv)
+                            .contentType("text/csv")
+                            .bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.received()).isEqualTo(3);
+            assertThat(response.inserted()).isEqualTo(2);
+            assertThat(response.failed()).isEqualTo(1);
+            assertThat(response.errors()).hasSize(1);
+            assertThat(response.errors().get(0).index()).isEqualTo(1);
+            assertThat(response.errors().get(0).errors()).containsKey("title");
+            assertThat(recordRepository.findByGenre(Genre.JAZZ))
+                    .singleElement()
+                    .satisfies(record -> {
+                        assertThat(record.getCondition()).isEqualTo(RecordCondition.EXCELLENT);
+                        assertThat(record.getNotes()).isEqualTo("Original press, 6-eye");
+                    });
+            assertThat(recordRepository.findByGenre(Genre.SOUL)).hasSize(1);
+        }
+
+        @Test
+        void should_import_iso_purchase_dates_and_report_impossible_ones() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            String csv = """
+                    title,artist,release_year,genre,purchase_source,purchase_date,condition,notes
+                    Blue Train,John Coltrane,1957,Jazz,,2024-02-29,VG,
+                    Abbey Road,The Beatles,1969,Rock,,2023-02-29,VG,
+                    """;
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/records/import", csv)
+                            .contentType("text/csv")
+                            .bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.inserted()).isEqualTo(1);
+            assertThat(response.errors()).singleElement().satisfies(error -> {
+                assertThat(error.index()).isEqualTo(1);
+                assertThat(error.errors()).containsKey("purchaseDate");
+            });
+            assertThat(recordRepository.findByGenre(Genre.JAZZ))
+                    .singleElement()
+                    .extracting(VinylRecord::getPurchaseDate)
+                    .isEqualTo(LocalDate.of(2024, 2, 29));
+        }
+
+        @Test
+        void should_report_unknown_genres_instead_of_importing_them_as_other() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            String csv = """
+                    title,artist,release_year,genre,purchase_source,purchase_date,condition,notes
+                    Blue Train,John Coltrane,1957,Jazz,,,VG,
+                    Music for Airports,Brian Eno,1978,Ambient,,,VG,
+                    """;
+
+            // when
+            BulkImportResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/api/records/import", csv)
+                            .contentType("text/csv")
+                            .bearerAuth(token), BulkImportResponse.class);
+
+            // then
+            assertThat(response.inserted()).isEqualTo(1);
+            assertThat(response.failed()).isEqualTo(1);
+            assertThat(response.errors()).singleElement().satisfies(error -> {
+                assertThat(error.index()).isEqualTo(1);
+                assertThat(error.errors()).containsEntry("genre", "Unknown genre: Ambient");
+            });
+            assertThat(recordRepository.findByGenre(Genre.OTHER)).isEmpty();
+        }
+
+        @Test
+        void should_return_400_for_malformed_csv() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            String csv = """
+                    title,artist,release_year,genre,purchase_source,purchase_date,condition,notes
+                    "Unterminated,Artist,1970,Rock,,,VG,
+                    """;
+
+            // when
+            Throwable thrown = catchThrowable(() -> client.toBlocking()
+                    .exchange(HttpRequest.POST("/api/records/import", csv)
+                            .contentType("text/csv")
+                            .bearerAuth(token), BulkImportResponse.class));
+
+            // then
+            assertThat(thrown).isInstanceOf(HttpClientResponseException.class);
+            assertThat(((HttpClientResponseException) thrown).getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(recordRepository.count()).isZero();
+        }
+    }
+
+    @Nested
+    class SetBasedWriteTests {
+
+        @Test
+        void should_delete_records_by_genre_in_one_request() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            createRecordWithDetails("Rock 1", "Artist", Genre.ROCK, token);
+            createRecordWithDetails("Rock 2", "Artist", Genre.ROCK, token);
+            createRecordWithDetails("Jazz 1", "Artist", Genre.JAZZ, token);
+
+            // when
+            BulkWriteResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.DELETE("/api/records?genre=ROCK").bearerAuth(token), BulkWriteResponse.class);
+
+            // then
+            assertThat(response.affected()).isEqualTo(2);
+            assertThat(recordRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        void should_update_records_by_artist_in_one_request() {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            createRecordWithDetails("Album 1", "Artist A", Genre.ROCK, token);
+            createRecordWithDetails("Album 2", "Artist B", Genre.ROCK, token);
+            RecordUpdateRequest changes = new RecordUpdateRequest(null, null, null, null, null, null, RecordCondition.FAIR, null);
+
+            // when
+            BulkWriteResponse response = client.toBlocking()
+                    .retrieve(HttpRequest.PATCH("/api/records?artist=Artist%20A", changes).bearerAuth(token),
+                            BulkWriteResponse.class);
+
+            // then
+            assertThat(response.affected()).isEqualTo(1);
+            assertThat(recordRepository.findByCondition(RecordCondition.FAIR))
+                    .extracting(VinylRecord::getTitle)
+                    .containsExactly("Album 1");
+        }
+    }
+
+    @Nested
+    class TracingTests {
+
+        @Test
+        void should_trace_route_service_connection_checkout_and_statements_in_one_trace() throws InterruptedException {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            spanExporter.reset();
+
+            // when
+            createTestRecordAndGetId(token);
+
+            // then
+            List<SpanData> spans = finishedSpans();
+            SpanData route = spans.stream()
+                    .filter(span -> span.getKind() == SpanKind.SERVER && span.getName().contains("/api/records"))
+                    .findFirst().orElseThrow();
+            SpanData service = spans.stream()
+                    .filter(span -> span.getName().equals("RecordService.create"))
+                    .findFirst().orElseThrow();
+            List<SpanData> underService = spans.stream()
+                    .filter(span -> span.getParentSpanId().equals(service.getSpanId()))
+                    .toList();
+
+            assertThat(service.getTraceId()).isEqualTo(route.getTraceId());
+            assertThat(underService).extracting(SpanData::getName)
+                    .anyMatch(name -> name.endsWith(".getConnection"));
+            assertThat(underService)
+                    .extracting(span -> span.getAttributes().get(AttributeKey.stringKey("db.statement")))
+                    .anyMatch(statement -> statement != null && statement.startsWith("INSERT INTO")
+                            && statement.contains("vinyl_records"));
+        }
+
+        @Test
+        void should_trace_reactive_search_statements_under_the_service_span() throws InterruptedException {
+            // given
+            String token = loginAndGetToken("katrin", "katrin123");
+            createRecordWithDetails("Traced Album", "Traced Artist", Genre.JAZZ, token);
+            spanExporter.reset();
+
+            // when
+            client.toBlocking().retrieve(HttpRequest.GET("/api/records/search?q=traced").bearerAuth(token),
+                    Argument.listOf(RecordResponse.class));
+
+            // then
+            List<SpanData> spans = finishedSpans();
+            SpanData route = spans.stream()
+                    .filter(span -> span.getKind() == SpanKind.SERVER && span.getName().contains("/api/records/search"))
+                    .findFirst().orElseThrow();
+            SpanData service = spans.stream()
+                    .filter(span -> span.getName().equals("RecordService.search"))
+                    .findFirst().orElseThrow();
+            List<SpanData> underService = spans.stream()
+                    .filter(span -> span.getParentSpanId().equals(service.getSpanId()))
+                    .toList();
+
+            assertThat(service.getTraceId()).isEqualTo(route.getTraceId());
+            assertThat(underService)
+                    .filteredOn(span -> span.getKind() == SpanKind.CLIENT)
+                    .extracting(span -> span.getAttributes().get(AttributeKey.stringKey("db.statement")))
+                    .anyMatch(statement -> statement != null && statement.startsWith("SELECT")
+                            && statement.contains("vinyl_records"));
+        }
+
+        /**
+         * The server span ends after the response is written, so wait for it before reading the spans.
+         */
+        private List<SpanData> finishedSpans() throws InterruptedException {
+            List<SpanData> spans = spanExporter.getFinishedSpanItems();
+            for (int attempt = 0; attempt < 50 && spans.stream().noneMatch(span -> span.getKind() == SpanKind.SERVER);
+                 attempt++) {
+                Thread.sleep(100);
+                spans = spanExporter.getFinishedSpanItems();
+            }
+            return spans;
+        }
+    }
+
     private Long createTestRecordAndGetId(String token) {
         RecordCreateRequest request = new RecordCreateRequest(
                 "Test Album",
@@ -461,6 +821,10 @@ class RecordIntegrationTest {
         client.toBlocking().exchange(HttpRequest.POST("/api/records", request).bearerAuth(token), RecordResponse.class);
     }
 
+    private void createRecord(RecordCreateRequest request, String token) {
+        client.toBlocking().exchange(HttpRequest.POST("/api/records", request).bearerAuth(token), RecordResponse.class);
+    }
+
     private String loginAndGetToken(String username, String password) {
         HttpResponse<BearerAccessRefreshToken> response = client.toBlocking()
                 .exchange(HttpRequest.POST("/login", Map.of("username", username, "password", password)),
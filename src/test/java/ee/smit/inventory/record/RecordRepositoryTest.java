@@ -5,6 +5,9 @@ package ee.smit.inventory.record;
  * Tests database operations for vinyl records using Testcontainers PostgreSQL.
  */
 
+import io.micronaut.data.model.Page;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.repository.jpa.criteria.PredicateSpecification;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,6 +25,9 @@ class RecordRepositoryTest {
     @Inject
     RecordRepository recordRepository;
 
+    @Inject
+    ReactiveRecordRepository reactiveRecordRepository;
+
     @BeforeEach
     void setUp() {
         recordRepository.deleteAll();
@@ -88,6 +94,37 @@ class RecordRepositoryTest {
         assertThat(results).allMatch(r -> r.getArtist().contains("Beatles"));
     }
 
+    @Test
+    void should_rank_full_text_matches_by_weight() {
+        // given
+        VinylRecord notesMatch = createTestRecord("Homework", "Daft Punk");
+        notesMatch.setNotes("Sounds like an early Beatles bootleg");
+        recordRepository.save(notesMatch);
+        recordRepository.save(createTestRecord("Abbey Road", "The Beatles"));
+        recordRepository.save(createTestRecord("Dark Side of the Moon", "Pink Floyd"));
+
+        // when
+        List<VinylRecord> results = recordRepository.searchRanked("beatles", 10);
+
+        // then - artist (weight A) outranks notes (weight C)
+        assertThat(results).extracting(VinylRecord::getTitle)
+                .containsExactly("Abbey Road", "Homework");
+    }
+
+    @Test
+    void should_cap_ranked_search_results_at_limit() {
+        // given
+        recordRepository.save(createTestRecord("Abbey Road", "The Beatles"));
+        recordRepository.save(createTestRecord("Let It Be", "The Beatles"));
+        recordRepository.save(createTestRecord("Revolver", "The Beatles"));
+
+        // when
+        List<VinylRecord> results = recordRepository.searchRanked("beatles", 2);
+
+        // then
+        assertThat(results).hasSize(2);
+    }
+
     @Test
     void should_count_by_genre() {
         // given
@@ -104,6 +141,75 @@ class RecordRepositoryTest {
         assertThat(jazzCount).isEqualTo(1);
     }
 
+    @Test
+    void should_keep_counters_in_sync_with_updates_and_deletes() {
+        // given
+        VinylRecord rock = recordRepository.save(createTestRecordWithGenre("Rock 1", Genre.ROCK));
+        recordRepository.save(createTestRecordWithGenre("Rock 2", Genre.ROCK));
+        VinylRecord jazz = recordRepository.save(createTestRecordWithGenre("Jazz 1", Genre.JAZZ));
+
+        // when
+        rock.setGenre(Genre.BLUES);
+        recordRepository.update(rock);
+        recordRepository.delete(jazz);
+
+        // then
+        assertThat(recordRepository.count()).isEqualTo(2);
+        assertThat(recordRepository.countByGenre(Genre.ROCK)).isEqualTo(1);
+        assertThat(recordRepository.countByGenre(Genre.BLUES)).isEqualTo(1);
+        assertThat(recordRepository.countByGenre(Genre.JAZZ)).isZero();
+    }
+
+    @Test
+    void should_combine_specifications_into_one_filter() {
+        // given
+        VinylRecord match = createTestRecord("Abbey Road", "The Beatles");
+        match.setPurchaseDate(LocalDate.of(2023, 5, 1));
+        recordRepository.save(match);
+        VinylRecord tooOld = createTestRecord("Please Please Me", "The Beatles");
+        tooOld.setReleaseYear(1963);
+        tooOld.setPurchaseDate(LocalDate.of(2023, 5, 1));
+        recordRepository.save(tooOld);
+        VinylRecord boughtLater = createTestRecord("Let It Be", "The Beatles");
+        boughtLater.setReleaseYear(1970);
+        boughtLater.setPurchaseDate(LocalDate.of(2024, 2, 1));
+        recordRepository.save(boughtLater);
+        recordRepository.save(createTestRecordWithGenre("Beatles Jazz Covers", Genre.JAZZ));
+
+        // when
+        PredicateSpecification<VinylRecord> specification = PredicateSpecification.<VinylRecord>where(null)
+                .and(RecordSpecifications.hasGenre(Genre.ROCK))
+                .and(RecordSpecifications.releasedFrom(1965))
+                .and(RecordSpecifications.releasedUntil(1975))
+                .and(RecordSpecifications.purchasedUntil(LocalDate.of(2023, 12, 31)))
+                .and(RecordSpecifications.titleOrArtistContains("beatles"));
+        Page<VinylRecord> page = recordRepository.findAll(specification, Pageable.from(0, 10));
+
+        // then
+        assertThat(page.getTotalSize()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(VinylRecord::getTitle).containsExactly("Abbey Road");
+    }
+
+    @Test
+    void should_read_rows_written_over_jdbc_through_the_reactive_repository() {
+        // given
+        VinylRecord abbeyRoad = recordRepository.save(createTestRecord("Abbey Road", "The Beatles"));
+        recordRepository.save(createTestRecordWithGenre("Kind of Blue", Genre.JAZZ));
+
+        // when
+        VinylRecord found = reactiveRecordRepository.findById(abbeyRoad.getId()).block();
+        List<VinylRecord> rock = reactiveRecordRepository.findByGenre(Genre.ROCK).collectList().block();
+        List<VinylRecord> ranked = reactiveRecordRepository.searchRanked("beatles", 10).collectList().block();
+        Long total = reactiveRecordRepository.count().block();
+
+        // then
+        assertThat(found).isNotNull();
+        assertThat(found.getTitle()).isEqualTo("Abbey Road");
+        assertThat(rock).extracting(VinylRecord::getTitle).containsExactly("Abbey Road");
+        assertThat(ranked).extracting(VinylRecord::getTitle).containsExactly("Abbey Road");
+        assertThat(total).isEqualTo(2L);
+    }
+
     private VinylRecord createTestRecord(String title, String artist) {
         VinylRecord record = new VinylRecord();
         record.setTitle(title);
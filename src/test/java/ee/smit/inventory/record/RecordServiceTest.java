@@ -5,24 +5,39 @@ package ee.smit.inventory.record;
  * Tests business logic for vinyl records using Mockito for repository mocking.
  */
 
+import ee.smit.inventory.common.KeysetQueries;
+import ee.smit.inventory.common.QueryResultCache;
+import ee.smit.inventory.common.SetBasedWrites;
+import ee.smit.inventory.common.StreamingQueries;
+import ee.smit.inventory.common.TableChangedEvent;
 import ee.smit.inventory.exception.NotFoundException;
 import ee.smit.inventory.record.dto.RecordCreateRequest;
 import ee.smit.inventory.record.dto.RecordUpdateRequest;
+import io.micronaut.cache.SyncCache;
+import io.micronaut.context.event.ApplicationEventPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,11 +46,35 @@ class RecordServiceTest {
     @Mock
     private RecordRepository recordRepository;
 
+    @Mock
+    private ReactiveRecordRepository reactiveRecordRepository;
+
+    @Mock
+    private KeysetQueries keysetQueries;
+
+    @Mock
+    private StreamingQueries streamingQueries;
+
+    @Mock
+    private ApplicationEventPublisher<TableChangedEvent> eventPublisher;
+
+    @Mock
+    private SyncCache<Object> cache;
+
+    @Mock
+    private QueryResultCache queryResultCache;
+
+    @Mock
+    private SetBasedWrites setBasedWrites;
+
     private RecordService recordService;
 
     @BeforeEach
     void setUp() {
-        recordService = new RecordService(recordRepository);
+        lenient().when(queryResultCache.getAsync(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+        recordService = new RecordService(recordRepository, reactiveRecordRepository,
+                keysetQueries, streamingQueries, eventPublisher, cache, queryResultCache, setBasedWrites);
     }
 
     @Test
@@ -73,22 +112,39 @@ class RecordServiceTest {
     void should_find_record_by_id() {
         // given
         VinylRecord record = createTestRecord(1L, "Test Album");
-        given(recordRepository.findById(1L)).willReturn(Optional.of(record));
+        given(reactiveRecordRepository.findById(1L)).willReturn(Mono.just(record));
+
+        // when
+        VinylRecord result = recordService.findById(1L).block();
+
+        // then
+        assertThat(result).isNotNull();
+        assertThat(result.getTitle()).isEqualTo("Test Album");
+    }
+
+    @Test
+    void should_not_cache_record_when_a_write_commits_during_the_load() {
+        // given - the commit of a concurrent write evicts while the row is being read
+        VinylRecord record = createTestRecord(1L, "Test Album");
+        given(reactiveRecordRepository.findById(1L)).willReturn(Mono.fromCallable(() -> {
+            recordService.onTableChanged(new TableChangedEvent("vinyl_records", 1L));
+            return record;
+        }));
 
         // when
-        Optional<VinylRecord> result = recordService.findById(1L);
+        VinylRecord result = recordService.findById(1L).block();
 
         // then
-        assertThat(result).isPresent();
-        assertThat(result.get().getTitle()).isEqualTo("Test Album");
+        assertThat(result).isSameAs(record);
+        verify(cache, never()).put(any(), any());
     }
 
     @Test
     void should_update_record() {
         // given
-        VinylRecord existingRecord = createTestRecord(1L, "Old Title");
-        given(recordRepository.findById(1L)).willReturn(Optional.of(existingRecord));
-        given(recordRepository.update(any(VinylRecord.class))).willAnswer(i -> i.getArgument(0));
+        VinylRecord updatedRecord = createTestRecord(1L, "New Title");
+        given(setBasedWrites.updateReturning(eq("vinyl_records"), eq(1L), anyString(), anyList(), eq(VinylRecord.class)))
+                .willReturn(Optional.of(updatedRecord));
         RecordUpdateRequest request = new RecordUpdateRequest(
                 "New Title",
                 null, null, null, null, null, null, null
@@ -99,13 +155,16 @@ class RecordServiceTest {
 
         // then
         assertThat(result.getTitle()).isEqualTo("New Title");
-        assertThat(result.getUpdatedAt()).isNotNull();
+        verify(setBasedWrites).updateReturning(eq("vinyl_records"), eq(1L),
+                eq("UPDATE vinyl_records SET updated_at = ?, title = ? WHERE id = ? RETURNING *"),
+                anyList(), eq(VinylRecord.class));
     }
 
     @Test
     void should_throw_exception_when_updating_non_existent_record() {
         // given
-        given(recordRepository.findById(999L)).willReturn(Optional.empty());
+        given(setBasedWrites.updateReturning(eq("vinyl_records"), eq(999L), anyString(), anyList(), eq(VinylRecord.class)))
+                .willReturn(Optional.empty());
         RecordUpdateRequest request = new RecordUpdateRequest(
                 "New Title", null, null, null, null, null, null, null
         );
@@ -122,20 +181,19 @@ class RecordServiceTest {
     @Test
     void should_delete_record() {
         // given
-        VinylRecord record = createTestRecord(1L, "Test Record");
-        given(recordRepository.findById(1L)).willReturn(Optional.of(record));
+        given(setBasedWrites.deleteByIds("vinyl_records", List.of(1L))).willReturn(List.of(1L));
 
         // when
         recordService.delete(1L);
 
         // then
-        verify(recordRepository).delete(record);
+        verify(setBasedWrites).deleteByIds("vinyl_records", List.of(1L));
     }
 
     @Test
     void should_throw_exception_when_deleting_non_existent_record() {
         // given
-        given(recordRepository.findById(999L)).willReturn(Optional.empty());
+        given(setBasedWrites.deleteByIds("vinyl_records", List.of(999L))).willReturn(List.of());
 
         // when
         Throwable throwable = catchThrowable(() -> recordService.delete(999L));